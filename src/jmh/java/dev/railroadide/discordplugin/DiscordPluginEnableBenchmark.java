@@ -0,0 +1,74 @@
+package dev.railroadide.discordplugin;
+
+import dev.railroadide.logger.Logger;
+import dev.railroadide.railroad.plugin.spi.PluginContext;
+import dev.railroadide.railroad.plugin.spi.event.EventBus;
+import dev.railroadide.railroad.plugin.spi.services.ApplicationInfoService;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures {@link DiscordPlugin#onEnable} with and without lazy activation, along with the number of classes it
+ * loads. Without lazy activation, enabling also activates the integration, which nothing answers here.
+ * <p>
+ * Run with {@code ./gradlew jmh --args="DiscordPluginEnableBenchmark"}. Each fork enables the plugin exactly once,
+ * so the time and the class count are those of a first enable in a fresh JVM, as in the IDE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class DiscordPluginEnableBenchmark {
+    @Param({"true", "false"})
+    public boolean lazy;
+
+    private PluginContext context;
+    private DiscordPlugin plugin;
+
+    /**
+     * Reports the classes loaded by each enable as the {@code loadedClasses} secondary result.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class LoadedClasses {
+        public long loadedClasses;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ApplicationInfoService applicationInfo = mock(ApplicationInfoService.class);
+        when(applicationInfo.getVersion()).thenReturn("benchmark");
+
+        this.context = mock(PluginContext.class);
+        when(this.context.getLogger()).thenReturn(mock(Logger.class));
+        when(this.context.getService(ApplicationInfoService.class)).thenReturn(applicationInfo);
+        when(this.context.getEventBus()).thenReturn(mock(EventBus.class));
+
+        boolean lazy = this.lazy;
+        this.plugin = new DiscordPlugin() {
+            @Override
+            boolean isLazyActivation() {
+                return lazy;
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.plugin.onDisable(this.context);
+    }
+
+    @Benchmark
+    public void enable(LoadedClasses counters) {
+        long before = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+        this.plugin.onEnable(this.context);
+        counters.loadedClasses = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount() - before;
+    }
+}
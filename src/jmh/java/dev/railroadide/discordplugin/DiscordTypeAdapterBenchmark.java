@@ -0,0 +1,85 @@
+package dev.railroadide.discordplugin;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import dev.railroadide.discordplugin.activity.discord.*;
+import dev.railroadide.discordplugin.data.DiscordUser;
+import dev.railroadide.discordplugin.event.DiscordReadyEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-written adapters of the IPC model, as registered on {@link DiscordPlugin#WIRE_GSON}, against
+ * Gson's reflective adapters, serializing and deserializing each type of the model.
+ * <p>
+ * Run with {@code ./gradlew jmh --args="DiscordTypeAdapterBenchmark"}. Both sides read the same JSON and write the
+ * same object, which the hand-written adapter read from that JSON.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DiscordTypeAdapterBenchmark {
+    private static final String USER = "{\"id\":\"1\",\"username\":\"railroad\",\"discriminator\":\"0\",\"avatar\":\"a_1\"," +
+            "\"avatar_decoration_data\":{\"asset\":\"a_2\",\"sku_id\":\"3\"},\"bot\":false,\"flags\":0,\"premium_type\":2}";
+
+    private static final Gson REFLECTIVE_GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .create();
+
+    @Param({"activity", "assets", "timestamps", "party", "button", "secrets", "user", "ready"})
+    public String type;
+
+    private Class<?> modelClass;
+    private String json;
+    private Object value;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (this.type) {
+            case "activity" -> use(DiscordActivity.class, "{\"type\":0,\"state\":\"Railroad 2.0.0\"," +
+                    "\"details\":\"Working on Example Mod\",\"timestamps\":{\"start\":1700000000000}," +
+                    "\"assets\":{\"large_image\":\"logo\",\"large_text\":\"Railroad\"}," +
+                    "\"party\":{\"id\":\"party\",\"size\":[1,4]},\"instance\":false}");
+            case "assets" -> use(DiscordActivityAssets.class, "{\"large_image\":\"logo\",\"large_text\":\"Railroad\"," +
+                    "\"small_image\":\"java\",\"small_text\":\"Java 21\"}");
+            case "timestamps" -> use(DiscordActivityTimestamps.class, "{\"start\":1700000000000,\"end\":1700000360000}");
+            case "party" -> use(DiscordActivityParty.class, "{\"id\":\"party\",\"size\":[1,4]}");
+            case "button" -> use(DiscordActivityButton.class, "{\"label\":\"Railroad\",\"url\":\"https://railroadide.dev\"}");
+            case "secrets" -> use(DiscordActivitySecrets.class, "{\"match\":\"match\",\"join\":\"join\",\"spectate\":\"spectate\"}");
+            case "user" -> use(DiscordUser.class, USER);
+            case "ready" -> use(DiscordReadyEvent.Data.class, "{\"v\":1,\"config\":{\"cdn_host\":\"cdn.discordapp.com\"," +
+                    "\"api_endpoint\":\"//discord.com/api\",\"environment\":\"production\"},\"user\":" + USER + "}");
+            default -> throw new IllegalArgumentException("Unknown type " + this.type);
+        }
+    }
+
+    @Benchmark
+    public String serializeAdapter() {
+        return DiscordPlugin.WIRE_GSON.toJson(this.value, this.modelClass);
+    }
+
+    @Benchmark
+    public String serializeReflective() {
+        return REFLECTIVE_GSON.toJson(this.value, this.modelClass);
+    }
+
+    @Benchmark
+    public Object deserializeAdapter() {
+        return DiscordPlugin.WIRE_GSON.fromJson(this.json, this.modelClass);
+    }
+
+    @Benchmark
+    public Object deserializeReflective() {
+        return REFLECTIVE_GSON.fromJson(this.json, this.modelClass);
+    }
+
+    private void use(Class<?> modelClass, String json) {
+        this.modelClass = modelClass;
+        this.json = json;
+        this.value = DiscordPlugin.WIRE_GSON.fromJson(json, modelClass);
+    }
+}
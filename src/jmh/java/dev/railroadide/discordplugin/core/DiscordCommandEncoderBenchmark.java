@@ -0,0 +1,96 @@
+package dev.railroadide.discordplugin.core;
+
+import com.google.gson.JsonObject;
+import dev.railroadide.discordplugin.DiscordPlugin;
+import dev.railroadide.discordplugin.activity.discord.DiscordActivity;
+import dev.railroadide.discordplugin.activity.discord.DiscordSetActivity;
+import dev.railroadide.discordplugin.data.DiscordConnectionState;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding a SET_ACTIVITY publish with {@link DiscordCommandEncoder} against the former path, which built
+ * a {@code JsonElement} tree of the command and pretty printed it to a {@link String}.
+ * <p>
+ * Run with {@code ./gradlew jmh --args="-prof gc DiscordCommandEncoderBenchmark"} to see the allocation per
+ * publish. The frame sizes of both paths are printed when a trial starts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DiscordCommandEncoderBenchmark {
+    private static final int OPCODE = DiscordConnectionState.CONNECTED.ordinal();
+    private static final long PID = 12345;
+
+    /**
+     * Whether every publish builds a new activity, as opening a project does, or republishes a built one, as
+     * restoring it after inactivity and sending it to several clients do.
+     */
+    @Param({"false", "true"})
+    public boolean newActivity;
+
+    private final DiscordBufferPool bufferPool = new DiscordBufferPool();
+    private final DiscordCommandEncoder encoder = new DiscordCommandEncoder(this.bufferPool, DiscordPlugin.WIRE_GSON);
+    private DiscordActivity activity;
+    private long nonce;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.activity = activity();
+
+        ByteBuffer frame = wireEncoder();
+        int wireLength = frame.remaining();
+        this.bufferPool.release(frame);
+        System.out.printf("%nFrame length: wire encoder %d bytes, tree and pretty printing %d bytes%n",
+                wireLength, DiscordFrameDecoder.HEADER_LENGTH + treeAndPrettyString().length);
+    }
+
+    @Benchmark
+    public ByteBuffer wireEncoder() throws IOException {
+        ByteBuffer frame = this.encoder.encode(command(), new DiscordSetActivity.Args(PID, publishedActivity()), OPCODE);
+        this.bufferPool.release(frame); // As the core does once the frame is written
+        return frame;
+    }
+
+    /**
+     * The encoding that {@code DiscordCore.sendCommand} used before the wire encoder, without the frame header.
+     */
+    @Benchmark
+    public byte[] treeAndPrettyString() {
+        DiscordCommand command = command();
+        var json = new JsonObject();
+        json.addProperty("cmd", command.getCmd().name());
+        json.add("args", DiscordPlugin.GSON.toJsonTree(new DiscordSetActivity.Args(PID, publishedActivity())));
+        json.addProperty("nonce", Long.toString(command.getNonce()));
+        return DiscordPlugin.GSON.toJson(json).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private DiscordCommand command() {
+        var command = new DiscordCommand();
+        command.setCmd(DiscordCommand.Type.SET_ACTIVITY);
+        command.setNonce(++this.nonce);
+        return command;
+    }
+
+    private DiscordActivity publishedActivity() {
+        return this.newActivity ? activity() : this.activity;
+    }
+
+    private static DiscordActivity activity() {
+        return DiscordActivity.builder()
+                .playing()
+                .state("Railroad 2.0.0")
+                .details("Working on Example Mod")
+                .startAt(1_700_000_000_000L)
+                .largeImage("logo")
+                .build();
+    }
+}
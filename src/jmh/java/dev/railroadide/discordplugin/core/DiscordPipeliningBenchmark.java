@@ -0,0 +1,92 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.event.DiscordCommand;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sending a batch of requests without waiting for their responses against sending each one only once
+ * the previous one was answered, against a {@link FakeDiscordEndpoint} that answers every command at once.
+ * <p>
+ * Run with {@code ./gradlew jmh --args="DiscordPipeliningBenchmark"}. Needs Unix domain sockets, which
+ * Windows 10 and later also provide.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DiscordPipeliningBenchmark {
+    @Param({"1", "16", "64"})
+    public int requests;
+
+    private Path directory;
+    private FakeDiscordEndpoint endpoint;
+    private DiscordCore core;
+
+    @Setup(Level.Trial)
+    public void connect() throws Exception {
+        MockDiscordLogger.install();
+        this.directory = Files.createTempDirectory("discord-benchmark");
+        this.endpoint = new FakeDiscordEndpoint(this.directory.resolve("discord-ipc-0"));
+        this.core = this.endpoint.connectReady(this.endpoint.newCore());
+
+        Thread responder = new Thread(this::respond, "discord-benchmark-endpoint");
+        responder.setDaemon(true);
+        responder.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        this.core.close();
+        this.endpoint.close();
+        Files.deleteIfExists(this.directory);
+    }
+
+    /**
+     * Sends the whole batch, then waits for every response.
+     */
+    @Benchmark
+    public void pipelined() throws Exception {
+        List<CompletableFuture<DiscordCommand>> futures = new ArrayList<>(this.requests);
+        for (int index = 0; index < this.requests; index++) {
+            futures.add(this.core.sendCommandAsync(DiscordCommand.Type.GET_USER, Map.of("id", "1")));
+        }
+
+        for (CompletableFuture<DiscordCommand> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Sends each request of the batch once the previous one was answered, paying a full round trip per request.
+     */
+    @Benchmark
+    public void oneAtATime() throws Exception {
+        for (int index = 0; index < this.requests; index++) {
+            this.core.sendCommandAsync(DiscordCommand.Type.GET_USER, Map.of("id", "1")).get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void respond() {
+        try {
+            while (true) {
+                DiscordCommand command = this.endpoint.readCommand();
+                this.endpoint.answer(command, command.getCmd() == DiscordCommand.Type.SUBSCRIBE ?
+                        "{\"evt\":\"" + command.getEvent() + "\"}" :
+                        "{\"id\":\"1\"}");
+            }
+        } catch (IOException ignored) {
+            // The core closed the connection
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.event.DiscordCommand;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a response takes to reach its callback once Discord has sent it, and how much CPU the
+ * connection uses while nothing is sent, against a {@link FakeDiscordEndpoint} that answers every command at once.
+ * <p>
+ * Run with {@code ./gradlew jmh --args="DiscordReaderLatencyBenchmark"}. Needs Unix domain sockets, which
+ * Windows 10 and later also provide.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DiscordReaderLatencyBenchmark {
+    private Path directory;
+    private FakeDiscordEndpoint endpoint;
+    private DiscordCore core;
+
+    @Setup(Level.Trial)
+    public void connect() throws Exception {
+        MockDiscordLogger.install();
+        this.directory = Files.createTempDirectory("discord-benchmark");
+        this.endpoint = new FakeDiscordEndpoint(this.directory.resolve("discord-ipc-0"));
+        this.core = this.endpoint.connectReady(this.endpoint.newCore());
+
+        Thread responder = new Thread(this::respond, "discord-benchmark-endpoint");
+        responder.setDaemon(true);
+        responder.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        this.core.close();
+        this.endpoint.close();
+        Files.deleteIfExists(this.directory);
+    }
+
+    /**
+     * A request and its response. The endpoint answers as soon as the request arrives, so this is the time the
+     * core takes to send a command and to hand the response to its callback.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public DiscordCommand roundTrip() throws Exception {
+        return this.core.sendCommandAsync(DiscordCommand.Type.GET_USER, Map.of("id", "1")).get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * One idle second on an open connection, reporting the CPU time the process used meanwhile. A reader that
+     * polls wakes up during the second; a blocking reader stays parked.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public void idleSecond(IdleCpu idle) throws InterruptedException {
+        long start = IdleCpu.processCpuNanos();
+        Thread.sleep(1000);
+        idle.cpuMicros += (IdleCpu.processCpuNanos() - start) / 1000;
+    }
+
+    private void respond() {
+        try {
+            while (true) {
+                DiscordCommand command = this.endpoint.readCommand();
+                this.endpoint.answer(command, command.getCmd() == DiscordCommand.Type.SUBSCRIBE ?
+                        "{\"evt\":\"" + command.getEvent() + "\"}" :
+                        "{\"id\":\"1\"}");
+            }
+        } catch (IOException ignored) {
+            // The core closed the connection
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class IdleCpu {
+        public long cpuMicros;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.cpuMicros = 0;
+        }
+
+        static long processCpuNanos() {
+            return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+        }
+    }
+}
@@ -2,10 +2,16 @@ package dev.railroadide.discordplugin;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import dev.railroadide.discordplugin.activity.discord.DiscordActivity;
+import dev.railroadide.discordplugin.activity.discord.*;
 import dev.railroadide.discordplugin.activity.ActivityManager;
+import dev.railroadide.discordplugin.core.DiscordCallbackExecutor;
+import dev.railroadide.discordplugin.core.DiscordConnectionSupervisor;
 import dev.railroadide.discordplugin.core.DiscordCore;
+import dev.railroadide.discordplugin.core.DiscordCoreGroup;
+import dev.railroadide.discordplugin.core.DiscordStatePublisher;
 import dev.railroadide.discordplugin.data.DiscordUser;
+import dev.railroadide.discordplugin.event.DiscordReadyEvent;
+import dev.railroadide.discordplugin.impl.UnixDiscordSocketDiscovery;
 import dev.railroadide.discordplugin.settings.DiscordPluginSettings;
 import dev.railroadide.logger.Logger;
 import dev.railroadide.railroad.localization.L18n;
@@ -22,57 +28,91 @@ import dev.railroadide.railroad.plugin.spi.services.ApplicationInfoService;
 import dev.railroadide.railroad.plugin.spi.services.IDEStateService;
 import lombok.Getter;
 
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.function.Consumer;
+import java.nio.file.Path;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 
 public class DiscordPlugin implements Plugin {
-    public static final Gson GSON = new GsonBuilder()
+    public static final Gson GSON = registerTypeAdapters(new GsonBuilder())
             .setPrettyPrinting()
             .disableHtmlEscaping()
             .create();
-    private static final List<Consumer<DiscordUser>> CURRENT_USER_LISTENERS = new CopyOnWriteArrayList<>();
+    /**
+     * Compact Gson used to stream outbound IPC messages; {@link #GSON} pretty prints and is meant for logging.
+     */
+    public static final Gson WIRE_GSON = registerTypeAdapters(new GsonBuilder())
+            .disableHtmlEscaping()
+            .create();
+    /**
+     * Outlives the cores, so subscribers such as the settings UI never need to subscribe again after a reconnect.
+     * Created on enable and completed on disable, together with the executor it delivers on.
+     */
+    private static volatile DiscordStatePublisher<DiscordUser> currentUser;
+    /**
+     * Stands in for {@link #currentUser} while the plugin is disabled: completes every subscriber without a user.
+     */
+    private static final Flow.Publisher<DiscordUser> NO_CURRENT_USER = subscriber -> {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long count) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onComplete();
+    };
+    /**
+     * The directory the plugin keeps its own files in. Resolved once, so every file of the plugin ends up in the
+     * same place.
+     */
+    public static final Path DATA_DIRECTORY = Path.of(System.getProperty("user.home"), ".railroad", "plugins", "discord");
+    private static final Path READY_SNAPSHOT_FILE = DATA_DIRECTORY.resolve("ready-snapshot.json");
     private static DiscordPlugin instance;
 
     @Getter
     public static Logger logger;
 
-    private DiscordCore discordCore;
-    private ActivityManager activityManager;
+    private DiscordCallbackExecutor callbackExecutor;
+    private volatile DiscordCoreGroup discordCores;
+    private volatile ActivityManager activityManager;
     private DiscordPluginSettings settings;
 
-    public static DiscordUser getCurrentDiscordUser() {
-        if (instance == null || instance.discordCore == null)
-            return null;
-
-        return instance.discordCore.getCurrentUser();
+    /**
+     * Registers the hand-written adapters of the IPC model, so none of it goes through reflective field access.
+     */
+    private static GsonBuilder registerTypeAdapters(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(DiscordActivity.class, DiscordActivity.TYPE_ADAPTER)
+                .registerTypeAdapter(DiscordActivityAssets.class, DiscordActivityAssets.TYPE_ADAPTER)
+                .registerTypeAdapter(DiscordActivityTimestamps.class, DiscordActivityTimestamps.TYPE_ADAPTER)
+                .registerTypeAdapter(DiscordActivityParty.class, DiscordActivityParty.TYPE_ADAPTER)
+                .registerTypeAdapter(DiscordActivityButton.class, DiscordActivityButton.TYPE_ADAPTER)
+                .registerTypeAdapter(DiscordActivitySecrets.class, DiscordActivitySecrets.TYPE_ADAPTER)
+                .registerTypeAdapter(DiscordSetActivity.Args.class, DiscordSetActivity.Args.TYPE_ADAPTER)
+                .registerTypeAdapter(DiscordUser.class, DiscordUser.TYPE_ADAPTER)
+                .registerTypeAdapter(DiscordUser.AvatarDecorationData.class, DiscordUser.AvatarDecorationData.TYPE_ADAPTER)
+                .registerTypeAdapter(DiscordReadyEvent.Data.class, DiscordReadyEvent.Data.TYPE_ADAPTER);
     }
 
-    public static void addCurrentUserListener(Consumer<DiscordUser> listener) {
-        if (listener == null)
-            return;
-
-        if (CURRENT_USER_LISTENERS.contains(listener))
-            return;
-
-        CURRENT_USER_LISTENERS.add(listener);
-
-        if (instance == null || instance.discordCore == null)
-            return;
+    public static DiscordUser getCurrentDiscordUser() {
+        if (instance == null || instance.discordCores == null)
+            return null;
 
-        instance.discordCore.addCurrentUserListener(listener);
+        return instance.discordCores.getCurrentUser();
     }
 
-    public static void removeCurrentUserListener(Consumer<DiscordUser> listener) {
-        if (listener == null)
-            return;
-
-        CURRENT_USER_LISTENERS.remove(listener);
-
-        if (instance != null && instance.discordCore != null) {
-            instance.discordCore.removeCurrentUserListener(listener);
-        }
+    /**
+     * @return A publisher of the current Discord user, which replays the latest user to new subscribers and
+     * keeps publishing across reconnects until the plugin is disabled. While the plugin is disabled, the
+     * publisher completes its subscribers at once.
+     */
+    public static Flow.Publisher<DiscordUser> getCurrentUserPublisher() {
+        DiscordStatePublisher<DiscordUser> publisher = currentUser;
+        return publisher != null ? publisher : NO_CURRENT_USER;
     }
 
     @Override
@@ -80,31 +120,24 @@ public class DiscordPlugin implements Plugin {
         if (context == null)
             throw new IllegalArgumentException("PluginContext cannot be null");
 
+        long enableStart = System.nanoTime();
+        long loadedClassesBefore = getTotalLoadedClassCount();
+
         instance = this;
+        this.callbackExecutor = new DiscordCallbackExecutor();
+        currentUser = new DiscordStatePublisher<>(this.callbackExecutor, 1);
+        // Stays eager: registering the settings is what lists them on the settings page, and whether to activate
+        // lazily is itself a setting. Registering loads no UI classes, since the codec only builds its node on demand.
         this.settings = new DiscordPluginSettings();
 
         logger = context.getLogger();
 
-        this.activityManager = new ActivityManager(discordCore, logger);
-
-        this.activityManager.setHideAfterMinutesSupplier(() -> {
-            Integer configuredValue = this.settings.hideAfterMinutes.getValue();
-            if (configuredValue == null)
-                return 0;
-
-            return Math.max(0, configuredValue);
-        });
-        this.activityManager.initializeInactivityTracking();
-
         ApplicationInfoService applicationInfo = context.getService(ApplicationInfoService.class);
         if (applicationInfo == null)
             throw new IllegalStateException("ApplicationInfoService is required for DiscordPlugin to function");
 
         EventBus eventBus = context.getEventBus();
         eventBus.subscribe(ProjectEvent.class, event -> {
-            if (discordCore == null)
-                return;
-
             if (event.isOpened()) {
                 Project project = event.project();
                 if (project == null) {
@@ -119,16 +152,16 @@ public class DiscordPlugin implements Plugin {
                         .startNow()
                         .largeImage("logo")
                         .build();
-                this.activityManager.publishActivity(activity);
+                publishActivity(activity);
             } else if (event.isClosed()) {
-                this.activityManager.clearAndForgetActivity();
+                ActivityManager manager = this.activityManager;
+                if (manager != null) {
+                    manager.clearAndForgetActivity();
+                }
             }
         });
 
         eventBus.subscribe(FileEvent.class, event -> {
-            if (discordCore == null)
-                return;
-
             if (event.isActivatedEvent()) {
                 IDEStateService ideState = context.getService(IDEStateService.class);
                 if (ideState == null) {
@@ -153,82 +186,200 @@ public class DiscordPlugin implements Plugin {
                         .startNow()
                         .largeImage("logo") // TODO: Set the image to the file type
                         .build();
-                this.activityManager.publishActivity(activity);
+                publishActivity(activity);
             }
         });
 
-        eventBus.subscribe(FileModifiedEvent.class, event -> this.activityManager.markUserInteraction());
-
-        eventBus.subscribe(EnterDefaultStateEvent.class, event -> {
-            if (discordCore != null) {
-                DiscordActivity activity = DiscordActivity.builder()
-                        .playing()
-                        .state(applicationInfo.getVersion())
-                        .details(L18n.localize("discord.activity.details.modding_minecraft"))
-                        .startNow()
-                        .largeImage("logo")
-                        .build();
-                this.activityManager.publishActivity(activity);
+        eventBus.subscribe(FileModifiedEvent.class, event -> {
+            ActivityManager manager = this.activityManager;
+            if (manager != null) {
+                manager.markUserInteraction();
             }
         });
 
+        eventBus.subscribe(EnterDefaultStateEvent.class, event -> publishActivity(defaultActivity(applicationInfo)));
+
         try {
-            discordCore = new DiscordCore(String.valueOf(this.settings.discordId.getValue()), this.settings.shouldReconnectOnActivityUpdate::getValue);
-            discordCore.connect();
-            for (Consumer<DiscordUser> listener : CURRENT_USER_LISTENERS) {
-                discordCore.addCurrentUserListener(listener);
+            // Without lazy activation the core starts now with the default activity. Lazy activation is opt-in,
+            // because it leaves Discord without any activity until the first event publishes one.
+            if (!isLazyActivation()) {
+                publishActivity(defaultActivity(applicationInfo));
             }
 
-            logger.info("Discord integration started successfully with client ID: " + this.settings.discordId.getValue());
-
-            DiscordActivity activity = DiscordActivity.builder()
-                    .playing()
-                    .state(applicationInfo.getVersion())
-                    .details(L18n.localize("discord.activity.details.modding_minecraft"))
-                    .startNow()
-                    .largeImage("logo")
-                    .build();
-            this.activityManager.publishActivity(activity);
-
             this.settings.discordId.addListener((oldValue, newValue) -> {
-                if (discordCore != null) {
-                    discordCore.setClientId(String.valueOf(newValue));
+                DiscordCoreGroup cores = discordCores;
+                if (cores != null) {
+                    cores.setClientId(String.valueOf(newValue));
                 }
             });
 
             this.settings.hideAfterMinutes.addListener((oldValue, newValue) -> {
+                ActivityManager manager = this.activityManager;
+                if (manager == null)
+                    return;
+
                 if (newValue == null || newValue <= 0) {
-                    this.activityManager.cancelHideActivityTask();
-                    this.activityManager.restoreActivityIfHidden();
+                    manager.cancelHideActivityTask();
+                    manager.restoreActivityIfHidden();
                     return;
                 }
 
-                this.activityManager.markUserInteraction();
+                manager.markUserInteraction();
             });
         } catch (Exception exception) {
             logger.error("Failed to start Discord integration", exception);
             onDisable(context);
+            return;
+        }
+
+        logger.info("Discord plugin enabled in {} ms, loading {} classes", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enableStart),
+                getTotalLoadedClassCount() - loadedClassesBefore);
+    }
+
+    /**
+     * @return Whether the Discord integration waits for the first published activity instead of starting on enable.
+     */
+    boolean isLazyActivation() {
+        return Boolean.TRUE.equals(this.settings.lazyActivation.getValue());
+    }
+
+    private static DiscordActivity defaultActivity(ApplicationInfoService applicationInfo) {
+        return DiscordActivity.builder()
+                .playing()
+                .state(applicationInfo.getVersion())
+                .details(L18n.localize("discord.activity.details.modding_minecraft"))
+                .startNow()
+                .largeImage("logo")
+                .build();
+    }
+
+    private void publishActivity(DiscordActivity activity) {
+        ActivityManager manager = activate();
+        if (manager != null) {
+            manager.publishActivity(activity);
         }
     }
 
+    /**
+     * Starts the Discord integration if it has not started yet: creates the core, tells it to connect in the
+     * background and starts tracking inactivity.
+     *
+     * @return The activity manager, or {@code null} if the plugin is disabled.
+     */
+    private synchronized ActivityManager activate() {
+        if (this.activityManager != null || this.settings == null)
+            return this.activityManager;
+
+        long activationStart = System.nanoTime();
+        long loadedClassesBefore = getTotalLoadedClassCount();
+
+        // Constructing a core does no I/O and connect() only posts to its event loop, so socket discovery,
+        // opening the channel and the handshake all run in the background.
+        // Activities published before READY are held by the core and sent once the connection is ready.
+        DiscordPluginSettings settings = this.settings;
+        var cores = new DiscordCoreGroup(path -> {
+            var core = new DiscordCore(String.valueOf(settings.discordId.getValue()), settings.shouldReconnectOnActivityUpdate::getValue, path);
+            logTimeToReady(core, activationStart);
+            core.useReadySnapshot(READY_SNAPSHOT_FILE);
+            return core;
+        }, Boolean.TRUE.equals(settings.multiClient.getValue()));
+        // Only the user of the client getCurrentDiscordUser() reports, not whichever client spoke last
+        cores.setCurrentUserListener(currentUser::submit);
+        cores.connect();
+
+        var manager = new ActivityManager(cores, logger);
+        manager.setHideAfterMinutesSupplier(() -> {
+            DiscordPluginSettings currentSettings = this.settings;
+            Integer configuredValue = currentSettings != null ? currentSettings.hideAfterMinutes.getValue() : null;
+            if (configuredValue == null)
+                return 0;
+
+            return Math.max(0, configuredValue);
+        });
+        manager.initializeInactivityTracking();
+
+        this.discordCores = cores;
+        this.activityManager = manager;
+        logger.info("Discord integration started successfully with client ID: " + this.settings.discordId.getValue());
+        logger.info("Discord integration activated in {} ms, loading {} classes", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - activationStart),
+                getTotalLoadedClassCount() - loadedClassesBefore);
+        return manager;
+    }
+
+    /**
+     * @return The number of classes loaded since the JVM started, counting unloaded ones, for startup measurements.
+     */
+    private static long getTotalLoadedClassCount() {
+        return ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+    }
+
+    /**
+     * Logs how long after activation the first connection became ready, which shows that startup did not wait
+     * for it.
+     */
+    private static void logTimeToReady(DiscordCore core, long activationStart) {
+        core.getConnectionStatePublisher().subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(DiscordConnectionSupervisor.State state) {
+                if (state != DiscordConnectionSupervisor.State.READY)
+                    return;
+
+                logger.info("Discord IPC connection{} ready {} ms after the integration was activated",
+                        core.getIpcPath() != null ? " to " + core.getIpcPath() : "", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - activationStart));
+                this.subscription.cancel();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
     @Override
-    public void onDisable(PluginContext context) {
+    public synchronized void onDisable(PluginContext context) {
         if (this.activityManager != null) {
             this.activityManager.shutdownInactivityTracking();
             this.activityManager = null;
         }
 
-        if (discordCore != null) {
-            discordCore.close();
-            discordCore = null;
+        if (discordCores != null) {
+            discordCores.close();
+            discordCores = null;
+        }
+
+        UnixDiscordSocketDiscovery.shutdown();
+
+        // The next enable starts a new publisher, so this one and its executor would otherwise never be shut down
+        if (currentUser != null) {
+            currentUser.close();
+            currentUser = null;
+        }
+
+        if (this.callbackExecutor != null) {
+            this.callbackExecutor.close();
+            this.callbackExecutor = null;
         }
 
         try {
             this.settings.unregisterSettings();
-            this.settings = null;
         } catch (Exception ignored) {
         }
 
+        // Also keeps a late event from activating the integration again
+        this.settings = null;
+
         instance = null;
     }
 }
@@ -1,7 +1,8 @@
 package dev.railroadide.discordplugin.activity;
 
 import dev.railroadide.discordplugin.activity.discord.DiscordActivity;
-import dev.railroadide.discordplugin.core.DiscordCore;
+import dev.railroadide.discordplugin.core.DiscordCoreGroup;
+import dev.railroadide.discordplugin.data.DiscordResult;
 import dev.railroadide.logger.Logger;
 import dev.railroadide.railroad.Railroad;
 import dev.railroadide.railroad.plugin.spi.event.EventListener;
@@ -17,7 +18,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.IntSupplier;
 
 public class ActivityManager {
-    private final DiscordCore discordCore;
+    private final DiscordCoreGroup discordCores;
     private final Logger logger;
 
     private ScheduledExecutorService inactivityScheduler;
@@ -29,8 +30,8 @@ public class ActivityManager {
     private volatile DiscordActivity lastKnownActivity;
     private volatile boolean activityHiddenByInactivity;
 
-    public ActivityManager(DiscordCore discordCore, Logger logger) {
-        this.discordCore = discordCore;
+    public ActivityManager(DiscordCoreGroup discordCores, Logger logger) {
+        this.discordCores = discordCores;
         this.logger = logger;
     }
 
@@ -97,8 +98,8 @@ public class ActivityManager {
     }
 
     public void publishActivity(DiscordActivity activity) {
-        DiscordCore core = this.discordCore;
-        if (core == null)
+        DiscordCoreGroup cores = this.discordCores;
+        if (cores == null)
             return;
 
         synchronized (this) {
@@ -109,12 +110,12 @@ public class ActivityManager {
         // Reset/invalidate any existing hide task before publishing, so a stale timer
         // cannot clear the freshly published activity.
         scheduleHideActivityTask();
-        core.getActivityManager().updateActivity(activity);
+        updateActivity(cores, activity);
     }
 
     public void markUserInteraction() {
-        DiscordCore core = this.discordCore;
-        if (core == null)
+        DiscordCoreGroup cores = this.discordCores;
+        if (cores == null)
             return;
 
         DiscordActivity activityToRestore = null;
@@ -131,7 +132,7 @@ public class ActivityManager {
             // Reset/invalidate any existing hide task before restoring, so a stale timer
             // cannot clear the restored activity.
             scheduleHideActivityTask();
-            core.getActivityManager().updateActivity(activityToRestore);
+            updateActivity(cores, activityToRestore);
             return;
         }
 
@@ -153,8 +154,8 @@ public class ActivityManager {
     }
 
     private void hideActivityForInactivity(long token) {
-        DiscordCore core = this.discordCore;
-        if (core == null)
+        DiscordCoreGroup cores = this.discordCores;
+        if (cores == null)
             return;
 
         synchronized (this) {
@@ -165,12 +166,12 @@ public class ActivityManager {
             this.hideActivityTask = null;
         }
 
-        core.getActivityManager().clearActivity();
+        updateActivity(cores, null);
     }
 
     public void restoreActivityIfHidden() {
-        DiscordCore core = this.discordCore;
-        if (core == null)
+        DiscordCoreGroup cores = this.discordCores;
+        if (cores == null)
             return;
 
         DiscordActivity activityToRestore = null;
@@ -182,7 +183,7 @@ public class ActivityManager {
         }
 
         if (activityToRestore != null) {
-            core.getActivityManager().updateActivity(activityToRestore);
+            updateActivity(cores, activityToRestore);
         }
     }
 
@@ -191,11 +192,19 @@ public class ActivityManager {
         this.lastKnownActivity = null;
         this.activityHiddenByInactivity = false;
 
-        if (this.discordCore != null) {
-            this.discordCore.getActivityManager().clearActivity();
+        if (this.discordCores != null) {
+            updateActivity(this.discordCores, null);
         }
     }
 
+    private void updateActivity(DiscordCoreGroup cores, DiscordActivity activity) {
+        cores.updateActivityAsync(activity).thenAccept(result -> {
+            if (result != DiscordResult.OK && result != DiscordResult.SUPERSEDED) {
+                this.logger.warn("Failed to update Discord activity: {}", result);
+            }
+        });
+    }
+
     public synchronized void cancelHideActivityTask() {
         cancelHideActivityTaskLocked();
     }
@@ -1,33 +1,52 @@
 package dev.railroadide.discordplugin.activity.discord;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import dev.railroadide.discordplugin.data.JsonAdapters;
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.Setter;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 
+/**
+ * A Discord activity. Activities are built with {@link #builder()} and cannot be changed once built, which lets
+ * them cache their encoded JSON and fingerprints: publishing the same activity again, for example when it is
+ * restored after inactivity or replayed after a reconnect, copies the cached bytes instead of serializing.
+ */
 @Getter
-public class DiscordActivity {
+public class DiscordActivity extends DiscordActivityPart {
+    static final Adapter ADAPTER = new Adapter();
+    public static final TypeAdapter<DiscordActivity> TYPE_ADAPTER = ADAPTER.nullSafe();
+
     private final DiscordActivityTimestamps timestamps;
     private final DiscordActivityAssets assets;
     private final DiscordActivityParty party;
     private transient final DiscordActivitySecrets secretsBak;
     private transient final List<DiscordActivityButton> buttonsBak;
     private Long applicationId;
-    @Setter
     private String name;
     private int type;
-    @Setter
     private String state;
-    @Setter
     private String details;
-    @Setter
     private boolean instance;
     private List<DiscordActivityButton> buttons;
     private DiscordActivitySecrets secrets;
+    // Caches of a built activity, filled on first use
+    @Getter(AccessLevel.NONE)
+    private transient volatile EncodedArgs encodedArgs;
+    @Getter(AccessLevel.NONE)
+    private transient volatile long exactFingerprint;
+    @Getter(AccessLevel.NONE)
+    private transient volatile long timelessFingerprint;
 
     public DiscordActivity() {
         this.timestamps = new DiscordActivityTimestamps();
@@ -44,14 +63,36 @@ public class DiscordActivity {
     }
 
     public void setApplicationId(long applicationId) {
+        checkMutable();
         this.applicationId = applicationId;
     }
 
+    public void setName(String name) {
+        checkMutable();
+        this.name = name;
+    }
+
+    public void setState(String state) {
+        checkMutable();
+        this.state = state;
+    }
+
+    public void setDetails(String details) {
+        checkMutable();
+        this.details = details;
+    }
+
+    public void setInstance(boolean instance) {
+        checkMutable();
+        this.instance = instance;
+    }
+
     public ActivityType getType() {
         return ActivityType.values()[type];
     }
 
     public void setType(ActivityType type) {
+        checkMutable();
         this.type = type.ordinal();
     }
 
@@ -60,6 +101,7 @@ public class DiscordActivity {
     }
 
     public void addButton(DiscordActivityButton button) {
+        checkMutable();
         if (buttonsBak.size() == 2)
             throw new IllegalStateException("Cannot add more than 2 buttons");
 
@@ -67,6 +109,7 @@ public class DiscordActivity {
     }
 
     public boolean removeButton(DiscordActivityButton button) {
+        checkMutable();
         return buttons.remove(button);
     }
 
@@ -81,6 +124,7 @@ public class DiscordActivity {
      * @param mode button mode
      */
     public void setActivityButtonsMode(ActivityButtonsMode mode) {
+        checkMutable();
         if (mode == ActivityButtonsMode.SECRETS) {
             this.buttons = null;
             this.secrets = secretsBak;
@@ -90,6 +134,77 @@ public class DiscordActivity {
         }
     }
 
+    /**
+     * Makes this activity and all of its parts immutable.
+     */
+    @Override
+    void freeze() {
+        super.freeze();
+        this.timestamps.freeze();
+        this.assets.freeze();
+        this.party.freeze();
+        this.secretsBak.freeze();
+        if (this.secrets != null) {
+            this.secrets.freeze();
+        }
+
+        for (DiscordActivityButton button : this.buttonsBak) {
+            button.freeze();
+        }
+    }
+
+    /**
+     * Encodes the SET_ACTIVITY arguments that publish this activity, the same as the wire encoder produces. Every
+     * publish creates new arguments, so the result is cached here once the activity is built, for the last pid it
+     * was encoded with.
+     *
+     * @param pid The process ID the activity is published for.
+     * @return The UTF-8 encoded JSON, which must not be modified.
+     */
+    byte[] encodedSetActivityArgs(long pid) {
+        EncodedArgs encoded = this.encodedArgs;
+        if (encoded != null && encoded.pid() == pid)
+            return encoded.json();
+
+        var out = new StringWriter();
+        var json = new JsonWriter(out);
+        json.setSerializeNulls(false); // As Gson does by default
+        try {
+            json.beginObject();
+            json.name("pid").value(pid);
+            json.name("activity");
+            ADAPTER.write(json, this, true);
+            json.endObject();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception); // StringWriter never throws
+        }
+
+        encoded = new EncodedArgs(pid, out.toString().getBytes(StandardCharsets.UTF_8));
+        if (isFrozen()) {
+            this.encodedArgs = encoded;
+        }
+
+        return encoded.json();
+    }
+
+    /**
+     * @return The cached fingerprint for the policy, or {@link DiscordActivityFingerprint#UNKNOWN} if there is none.
+     */
+    long cachedFingerprint(DiscordActivityFingerprint.Policy policy) {
+        return policy == DiscordActivityFingerprint.Policy.EXACT ? this.exactFingerprint : this.timelessFingerprint;
+    }
+
+    void cacheFingerprint(DiscordActivityFingerprint.Policy policy, long fingerprint) {
+        if (!isFrozen())
+            return;
+
+        if (policy == DiscordActivityFingerprint.Policy.EXACT) {
+            this.exactFingerprint = fingerprint;
+        } else {
+            this.timelessFingerprint = fingerprint;
+        }
+    }
+
     @Override
     public String toString() {
         return "DiscordActivity{" +
@@ -109,6 +224,103 @@ public class DiscordActivity {
                 '}';
     }
 
+    /**
+     * Reads and writes activities field by field, producing the same JSON as reflective serialization.
+     */
+    static final class Adapter extends TypeAdapter<DiscordActivity> {
+        @Override
+        public void write(JsonWriter out, DiscordActivity value) throws IOException {
+            write(out, value, true);
+        }
+
+        /**
+         * @param includeTimestamps Whether to write the timestamps, which {@link DiscordActivityFingerprint}
+         *                          may leave out.
+         */
+        void write(JsonWriter out, DiscordActivity value, boolean includeTimestamps) throws IOException {
+            out.beginObject();
+            if (includeTimestamps) {
+                out.name("timestamps");
+                DiscordActivityTimestamps.TYPE_ADAPTER.write(out, value.timestamps);
+            }
+
+            out.name("assets");
+            DiscordActivityAssets.TYPE_ADAPTER.write(out, value.assets);
+            out.name("party");
+            DiscordActivityParty.TYPE_ADAPTER.write(out, value.party);
+            out.name("applicationId").value(value.applicationId);
+            out.name("name").value(value.name);
+            out.name("type").value(value.type);
+            out.name("state").value(value.state);
+            out.name("details").value(value.details);
+            out.name("instance").value(value.instance);
+            if (value.buttons != null) {
+                out.name("buttons").beginArray();
+                for (DiscordActivityButton button : value.buttons) {
+                    DiscordActivityButton.TYPE_ADAPTER.write(out, button);
+                }
+
+                out.endArray();
+            }
+
+            out.name("secrets");
+            DiscordActivitySecrets.TYPE_ADAPTER.write(out, value.secrets);
+            out.endObject();
+        }
+
+        @Override
+        public DiscordActivity read(JsonReader in) throws IOException {
+            var value = new DiscordActivity();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "timestamps" -> {
+                        if (!JsonAdapters.nextNull(in)) {
+                            DiscordActivityTimestamps.ADAPTER.readInto(in, value.timestamps);
+                        }
+                    }
+                    case "assets" -> {
+                        if (!JsonAdapters.nextNull(in)) {
+                            DiscordActivityAssets.ADAPTER.readInto(in, value.assets);
+                        }
+                    }
+                    case "party" -> {
+                        if (!JsonAdapters.nextNull(in)) {
+                            DiscordActivityParty.ADAPTER.readInto(in, value.party);
+                        }
+                    }
+                    case "applicationId" -> value.applicationId = JsonAdapters.nextLong(in);
+                    case "name" -> value.name = JsonAdapters.nextString(in);
+                    case "type" -> value.type = in.nextInt();
+                    case "state" -> value.state = JsonAdapters.nextString(in);
+                    case "details" -> value.details = JsonAdapters.nextString(in);
+                    case "instance" -> value.instance = in.nextBoolean();
+                    case "buttons" -> {
+                        if (!JsonAdapters.nextNull(in)) {
+                            in.beginArray();
+                            while (in.hasNext()) {
+                                value.buttonsBak.add(DiscordActivityButton.TYPE_ADAPTER.read(in));
+                            }
+
+                            in.endArray();
+                            value.setActivityButtonsMode(ActivityButtonsMode.BUTTONS);
+                        }
+                    }
+                    case "secrets" -> {
+                        if (!JsonAdapters.nextNull(in)) {
+                            DiscordActivitySecrets.ADAPTER.readInto(in, value.secretsBak);
+                            value.setActivityButtonsMode(ActivityButtonsMode.SECRETS);
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+
+            in.endObject();
+            return value;
+        }
+    }
+
     public enum ActivityButtonsMode {
         BUTTONS,
         SECRETS
@@ -283,9 +495,10 @@ public class DiscordActivity {
         }
 
         /**
-         * Build the configured DiscordActivity.
+         * Build the configured DiscordActivity, which can no longer be changed afterwards.
          */
         public DiscordActivity build() {
+            activity.freeze();
             return activity;
         }
 
@@ -295,4 +508,7 @@ public class DiscordActivity {
             return activity;
         }
     }
+
+    private record EncodedArgs(long pid, byte[] json) {
+    }
 }
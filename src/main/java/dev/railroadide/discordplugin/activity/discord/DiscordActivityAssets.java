@@ -1,21 +1,35 @@
 package dev.railroadide.discordplugin.activity.discord;
 
-public class DiscordActivityAssets {
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import dev.railroadide.discordplugin.data.JsonAdapters;
+
+import java.io.IOException;
+
+public class DiscordActivityAssets extends DiscordActivityPart {
+    static final Adapter ADAPTER = new Adapter();
+    public static final TypeAdapter<DiscordActivityAssets> TYPE_ADAPTER = ADAPTER.nullSafe();
+
     private String large_image, large_text, small_image, small_text;
 
     public void setLargeImage(String assetKey) {
+        checkMutable();
         this.large_image = assetKey;
     }
 
     public void setLargeText(String text) {
+        checkMutable();
         this.large_text = text;
     }
 
     public void setSmallImage(String assetKey) {
+        checkMutable();
         this.small_image = assetKey;
     }
 
     public void setSmallText(String text) {
+        checkMutable();
         this.small_text = text;
     }
 
@@ -28,4 +42,37 @@ public class DiscordActivityAssets {
                 ", small_text='" + small_text + '\'' +
                 '}';
     }
+
+    static final class Adapter extends TypeAdapter<DiscordActivityAssets> {
+        @Override
+        public void write(JsonWriter out, DiscordActivityAssets value) throws IOException {
+            out.beginObject();
+            out.name("large_image").value(value.large_image);
+            out.name("large_text").value(value.large_text);
+            out.name("small_image").value(value.small_image);
+            out.name("small_text").value(value.small_text);
+            out.endObject();
+        }
+
+        @Override
+        public DiscordActivityAssets read(JsonReader in) throws IOException {
+            return readInto(in, new DiscordActivityAssets());
+        }
+
+        DiscordActivityAssets readInto(JsonReader in, DiscordActivityAssets value) throws IOException {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "large_image" -> value.large_image = JsonAdapters.nextString(in);
+                    case "large_text" -> value.large_text = JsonAdapters.nextString(in);
+                    case "small_image" -> value.small_image = JsonAdapters.nextString(in);
+                    case "small_text" -> value.small_text = JsonAdapters.nextString(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            in.endObject();
+            return value;
+        }
+    }
 }
@@ -1,6 +1,15 @@
 package dev.railroadide.discordplugin.activity.discord;
 
-public class DiscordActivityButton {
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import dev.railroadide.discordplugin.data.JsonAdapters;
+
+import java.io.IOException;
+
+public class DiscordActivityButton extends DiscordActivityPart {
+    public static final TypeAdapter<DiscordActivityButton> TYPE_ADAPTER = new Adapter().nullSafe();
+
     private String label;
     private String url;
 
@@ -17,6 +26,7 @@ public class DiscordActivityButton {
     }
 
     public void setLabel(String label) {
+        checkMutable();
         this.label = label;
     }
 
@@ -25,6 +35,7 @@ public class DiscordActivityButton {
     }
 
     public void setUrl(String url) {
+        checkMutable();
         this.url = url;
     }
 
@@ -35,4 +46,30 @@ public class DiscordActivityButton {
                 ", url='" + url + '\'' +
                 '}';
     }
+
+    static final class Adapter extends TypeAdapter<DiscordActivityButton> {
+        @Override
+        public void write(JsonWriter out, DiscordActivityButton value) throws IOException {
+            out.beginObject();
+            out.name("label").value(value.label);
+            out.name("url").value(value.url);
+            out.endObject();
+        }
+
+        @Override
+        public DiscordActivityButton read(JsonReader in) throws IOException {
+            var value = new DiscordActivityButton();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "label" -> value.label = JsonAdapters.nextString(in);
+                    case "url" -> value.url = JsonAdapters.nextString(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            in.endObject();
+            return value;
+        }
+    }
 }
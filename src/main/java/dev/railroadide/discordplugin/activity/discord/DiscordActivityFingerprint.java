@@ -0,0 +1,101 @@
+package dev.railroadide.discordplugin.activity.discord;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Structural fingerprint of a {@link DiscordActivity}, used to skip updates that would not change what Discord shows.
+ * <p>
+ * The fingerprint is a 64-bit FNV-1a hash of the activity's wire JSON, computed while it is written so no string
+ * is built. A {@link Policy} decides which volatile fields are left out. Built activities cache their fingerprints.
+ */
+public final class DiscordActivityFingerprint {
+    /**
+     * Fingerprint that never matches, for updates that should always be sent.
+     */
+    public static final long UNKNOWN = 0L;
+    /**
+     * Fingerprint of clearing the activity.
+     */
+    public static final long CLEARED = 1L;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private DiscordActivityFingerprint() {
+    }
+
+    /**
+     * Computes the fingerprint of an activity.
+     *
+     * @param activity The activity, or {@code null} for clearing it.
+     * @param policy   Which fields to leave out.
+     * @return The fingerprint, never {@link #UNKNOWN}.
+     */
+    public static long of(DiscordActivity activity, Policy policy) {
+        if (activity == null)
+            return CLEARED;
+
+        long cached = activity.cachedFingerprint(policy);
+        if (cached != UNKNOWN)
+            return cached;
+
+        var hasher = new HashingWriter();
+        try {
+            DiscordActivity.ADAPTER.write(new JsonWriter(hasher), activity, policy != Policy.IGNORE_TIMESTAMPS);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception); // HashingWriter never throws
+        }
+
+        long hash = hasher.hash;
+        long fingerprint = hash == UNKNOWN || hash == CLEARED ? hash + 2 : hash;
+        activity.cacheFingerprint(policy, fingerprint);
+        return fingerprint;
+    }
+
+    public enum Policy {
+        /**
+         * Every field counts.
+         */
+        EXACT,
+        /**
+         * The start and end timestamps are ignored, so republishing the same activity with a fresh
+         * {@code startNow()} is skipped and the elapsed time Discord shows keeps running.
+         */
+        IGNORE_TIMESTAMPS
+    }
+
+    private static final class HashingWriter extends Writer {
+        private long hash = FNV_OFFSET_BASIS;
+
+        @Override
+        public void write(int c) {
+            this.hash = (this.hash ^ (c & 0xFFFF)) * FNV_PRIME;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            for (int index = offset; index < offset + length; index++) {
+                write(chars[index]);
+            }
+        }
+
+        @Override
+        public void write(String string, int offset, int length) {
+            for (int index = offset; index < offset + length; index++) {
+                write(string.charAt(index));
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
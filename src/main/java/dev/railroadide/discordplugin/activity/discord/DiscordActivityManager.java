@@ -2,8 +2,8 @@ package dev.railroadide.discordplugin.activity.discord;
 
 import dev.railroadide.discordplugin.core.DiscordCore;
 import dev.railroadide.discordplugin.data.DiscordResult;
-import dev.railroadide.discordplugin.event.DiscordCommand;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -27,7 +27,10 @@ public record DiscordActivityManager(DiscordCore core) {
 
     /**
      * <p>Updates the user's current presence to a new activity.</p>
-     * <p>A custom callback is used to handle the returned {@link DiscordResult}.</p>
+     * <p>A custom callback is used to handle the returned {@link DiscordResult}. If a newer update replaces
+     * this one before it is sent, the callback receives {@link DiscordResult#SUPERSEDED}. If Discord already shows
+     * an activity with the same {@link DiscordActivityFingerprint}, nothing is sent and the callback receives
+     * {@link DiscordResult#OK}.</p>
      *
      * @param activity New activity for the user.
      * @param callback Callback to process the returned {@link DiscordResult}.
@@ -35,9 +38,24 @@ public record DiscordActivityManager(DiscordCore core) {
      * https://discordapp.com/developers/docs/game-sdk/activities#updateactivity</a>
      */
     public void updateActivity(DiscordActivity activity, Consumer<DiscordResult> callback) {
-        this.core.sendCommand(DiscordCommand.Type.SET_ACTIVITY, new DiscordSetActivity.Args(this.core.getPid(), activity), response -> {
-            callback.accept(this.core.checkError(response));
-        });
+        this.core.sendActivityUpdate(new DiscordSetActivity.Args(this.core.getPid(), activity), fingerprint(activity), callback);
+    }
+
+    /**
+     * <p>Updates the user's current presence to a new activity without blocking.</p>
+     * <p>The returned future completes on a callback thread with the {@link DiscordResult}, or with
+     * {@link DiscordResult#SUPERSEDED} if a newer update replaced this one before it was sent. Cancelling the
+     * future before the update is sent drops the update.</p>
+     *
+     * @param activity New activity for the user.
+     * @return A future completed with the result of the update.
+     */
+    public CompletableFuture<DiscordResult> updateActivityAsync(DiscordActivity activity) {
+        return this.core.sendActivityUpdateAsync(new DiscordSetActivity.Args(this.core.getPid(), activity), fingerprint(activity));
+    }
+
+    private long fingerprint(DiscordActivity activity) {
+        return DiscordActivityFingerprint.of(activity, this.core.getActivityFingerprintPolicy());
     }
 
     public void clearActivity() {
@@ -55,4 +73,13 @@ public record DiscordActivityManager(DiscordCore core) {
     public void clearActivity(Consumer<DiscordResult> callback) {
         updateActivity(null, callback);
     }
+
+    /**
+     * <p>Clears the user's current presence without blocking.</p>
+     *
+     * @return A future completed with the result, as for {@link #updateActivityAsync(DiscordActivity)}.
+     */
+    public CompletableFuture<DiscordResult> clearActivityAsync() {
+        return updateActivityAsync(null);
+    }
 }
@@ -0,0 +1,28 @@
+package dev.railroadide.discordplugin.activity.discord;
+
+/**
+ * Base of {@link DiscordActivity} and its parts, which become immutable once the activity is built so the
+ * encoded form of a built activity can be cached.
+ */
+abstract class DiscordActivityPart {
+    private transient boolean frozen;
+
+    /**
+     * @return Whether this is part of a built activity and can no longer be changed.
+     */
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    void freeze() {
+        this.frozen = true;
+    }
+
+    /**
+     * @throws IllegalStateException If this is part of a built activity.
+     */
+    void checkMutable() {
+        if (this.frozen)
+            throw new IllegalStateException("A Discord activity cannot be changed once it is built");
+    }
+}
@@ -1,6 +1,17 @@
 package dev.railroadide.discordplugin.activity.discord;
 
-public class DiscordActivityParty {
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import dev.railroadide.discordplugin.data.JsonAdapters;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class DiscordActivityParty extends DiscordActivityPart {
+    static final Adapter ADAPTER = new Adapter();
+    public static final TypeAdapter<DiscordActivityParty> TYPE_ADAPTER = ADAPTER.nullSafe();
+
     private String id;
     private int[] size;
 
@@ -13,6 +24,7 @@ public class DiscordActivityParty {
     }
 
     public void setId(String id) {
+        checkMutable();
         this.id = id;
     }
 
@@ -21,6 +33,7 @@ public class DiscordActivityParty {
     }
 
     public void setCurrentSize(int size) {
+        checkMutable();
         this.size[0] = size;
     }
 
@@ -29,10 +42,12 @@ public class DiscordActivityParty {
     }
 
     public void setMaxSize(int size) {
+        checkMutable();
         this.size[1] = size;
     }
 
     public void setSize(int current, int max) {
+        checkMutable();
         this.size = new int[]{current, max};
     }
 
@@ -43,4 +58,61 @@ public class DiscordActivityParty {
                 ", size={min=" + size[0] + ", max=" + size[1] + '}' +
                 '}';
     }
+
+    static final class Adapter extends TypeAdapter<DiscordActivityParty> {
+        @Override
+        public void write(JsonWriter out, DiscordActivityParty value) throws IOException {
+            out.beginObject();
+            out.name("id").value(value.id);
+            if (value.size != null) {
+                out.name("size").beginArray();
+                for (int size : value.size) {
+                    out.value(size);
+                }
+
+                out.endArray();
+            }
+
+            out.endObject();
+        }
+
+        @Override
+        public DiscordActivityParty read(JsonReader in) throws IOException {
+            return readInto(in, new DiscordActivityParty());
+        }
+
+        DiscordActivityParty readInto(JsonReader in, DiscordActivityParty value) throws IOException {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id" -> value.id = JsonAdapters.nextString(in);
+                    case "size" -> value.size = readSize(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            in.endObject();
+            return value;
+        }
+
+        private static int[] readSize(JsonReader in) throws IOException {
+            if (JsonAdapters.nextNull(in))
+                return null;
+
+            int[] size = new int[2];
+            int count = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                int element = in.nextInt();
+                if (count == size.length) {
+                    size = Arrays.copyOf(size, count * 2);
+                }
+
+                size[count++] = element;
+            }
+
+            in.endArray();
+            return count == size.length ? size : Arrays.copyOf(size, count);
+        }
+    }
 }
@@ -1,6 +1,16 @@
 package dev.railroadide.discordplugin.activity.discord;
 
-public class DiscordActivitySecrets {
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import dev.railroadide.discordplugin.data.JsonAdapters;
+
+import java.io.IOException;
+
+public class DiscordActivitySecrets extends DiscordActivityPart {
+    static final Adapter ADAPTER = new Adapter();
+    public static final TypeAdapter<DiscordActivitySecrets> TYPE_ADAPTER = ADAPTER.nullSafe();
+
     private String match;
     private String join;
     private String spectate;
@@ -10,6 +20,7 @@ public class DiscordActivitySecrets {
     }
 
     public void setMatchSecret(String match) {
+        checkMutable();
         this.match = match;
     }
 
@@ -18,6 +29,7 @@ public class DiscordActivitySecrets {
     }
 
     public void setJoinSecret(String join) {
+        checkMutable();
         this.join = join;
     }
 
@@ -26,6 +38,7 @@ public class DiscordActivitySecrets {
     }
 
     public void setSpectateSecret(String spectate) {
+        checkMutable();
         this.spectate = spectate;
     }
 
@@ -37,4 +50,35 @@ public class DiscordActivitySecrets {
                 ", spectate='" + spectate + '\'' +
                 '}';
     }
+
+    static final class Adapter extends TypeAdapter<DiscordActivitySecrets> {
+        @Override
+        public void write(JsonWriter out, DiscordActivitySecrets value) throws IOException {
+            out.beginObject();
+            out.name("match").value(value.match);
+            out.name("join").value(value.join);
+            out.name("spectate").value(value.spectate);
+            out.endObject();
+        }
+
+        @Override
+        public DiscordActivitySecrets read(JsonReader in) throws IOException {
+            return readInto(in, new DiscordActivitySecrets());
+        }
+
+        DiscordActivitySecrets readInto(JsonReader in, DiscordActivitySecrets value) throws IOException {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "match" -> value.match = JsonAdapters.nextString(in);
+                    case "join" -> value.join = JsonAdapters.nextString(in);
+                    case "spectate" -> value.spectate = JsonAdapters.nextString(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            in.endObject();
+            return value;
+        }
+    }
 }
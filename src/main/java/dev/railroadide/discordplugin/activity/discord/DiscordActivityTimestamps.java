@@ -1,8 +1,17 @@
 package dev.railroadide.discordplugin.activity.discord;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import dev.railroadide.discordplugin.data.JsonAdapters;
+
+import java.io.IOException;
 import java.time.Instant;
 
-public class DiscordActivityTimestamps {
+public class DiscordActivityTimestamps extends DiscordActivityPart {
+    static final Adapter ADAPTER = new Adapter();
+    public static final TypeAdapter<DiscordActivityTimestamps> TYPE_ADAPTER = ADAPTER.nullSafe();
+
     private Long start, end;
 
     public Instant getStart() {
@@ -10,6 +19,7 @@ public class DiscordActivityTimestamps {
     }
 
     public void setStart(Instant start) {
+        checkMutable();
         this.start = start.toEpochMilli();
         this.end = null;
     }
@@ -19,7 +29,37 @@ public class DiscordActivityTimestamps {
     }
 
     public void setEnd(Instant end) {
+        checkMutable();
         this.start = null;
         this.end = end.toEpochMilli();
     }
+
+    static final class Adapter extends TypeAdapter<DiscordActivityTimestamps> {
+        @Override
+        public void write(JsonWriter out, DiscordActivityTimestamps value) throws IOException {
+            out.beginObject();
+            out.name("start").value(value.start);
+            out.name("end").value(value.end);
+            out.endObject();
+        }
+
+        @Override
+        public DiscordActivityTimestamps read(JsonReader in) throws IOException {
+            return readInto(in, new DiscordActivityTimestamps());
+        }
+
+        DiscordActivityTimestamps readInto(JsonReader in, DiscordActivityTimestamps value) throws IOException {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "start" -> value.start = JsonAdapters.nextLong(in);
+                    case "end" -> value.end = JsonAdapters.nextLong(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            in.endObject();
+            return value;
+        }
+    }
 }
@@ -1,10 +1,23 @@
 package dev.railroadide.discordplugin.activity.discord;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import dev.railroadide.discordplugin.core.DiscordEncodedArgs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 public class DiscordSetActivity {
     private DiscordSetActivity() {
     }
 
-    public static class Args {
+    /**
+     * Arguments of SET_ACTIVITY. A built activity caches their JSON, so these are encoded by copying bytes.
+     */
+    public static class Args implements DiscordEncodedArgs {
+        public static final TypeAdapter<Args> TYPE_ADAPTER = new Adapter().nullSafe();
+
         private final long pid;
         private final DiscordActivity activity;
 
@@ -12,5 +25,42 @@ public class DiscordSetActivity {
             this.pid = pid;
             this.activity = activity;
         }
+
+        @Override
+        public byte[] encodedJson() {
+            // A null activity is left out, as Gson does by default
+            if (this.activity == null)
+                return ("{\"pid\":" + this.pid + "}").getBytes(StandardCharsets.UTF_8);
+
+            return this.activity.encodedSetActivityArgs(this.pid);
+        }
+
+        static final class Adapter extends TypeAdapter<Args> {
+            @Override
+            public void write(JsonWriter out, Args value) throws IOException {
+                out.beginObject();
+                out.name("pid").value(value.pid);
+                out.name("activity");
+                DiscordActivity.TYPE_ADAPTER.write(out, value.activity);
+                out.endObject();
+            }
+
+            @Override
+            public Args read(JsonReader in) throws IOException {
+                long pid = 0;
+                DiscordActivity activity = null;
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "pid" -> pid = in.nextLong();
+                        case "activity" -> activity = DiscordActivity.TYPE_ADAPTER.read(in);
+                        default -> in.skipValue();
+                    }
+                }
+
+                in.endObject();
+                return new Args(pid, activity);
+            }
+        }
     }
 }
@@ -0,0 +1,100 @@
+package dev.railroadide.discordplugin.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of reusable direct buffers used for IPC framing.
+ * <p>
+ * Buffers are grouped in power-of-four size classes from 1 KiB to 64 KiB, each keeping a few idle buffers.
+ * Requests larger than the biggest class are served by a one-off heap buffer that is dropped on release.
+ * Every acquired buffer is cleared, little-endian and limited to the requested capacity.
+ */
+public final class DiscordBufferPool {
+    private static final int MIN_CLASS_SHIFT = 10;
+    private static final int CLASS_COUNT = 4;
+    private static final int BUFFERS_PER_CLASS = 4;
+
+    private final ArrayBlockingQueue<ByteBuffer>[] classes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public DiscordBufferPool() {
+        this.classes = new ArrayBlockingQueue[CLASS_COUNT];
+        for (int index = 0; index < CLASS_COUNT; index++) {
+            this.classes[index] = new ArrayBlockingQueue<>(BUFFERS_PER_CLASS);
+        }
+    }
+
+    /**
+     * Returns a buffer with at least the given capacity, reusing an idle one when possible.
+     *
+     * @param capacity The number of bytes the caller needs.
+     * @return A cleared little-endian buffer whose limit is {@code capacity}.
+     */
+    public ByteBuffer acquire(int capacity) {
+        int index = classIndex(capacity);
+        ByteBuffer buffer;
+        if (index < 0) {
+            buffer = ByteBuffer.allocate(capacity);
+            this.misses.increment();
+        } else {
+            buffer = this.classes[index].poll();
+            if (buffer != null) {
+                this.hits.increment();
+            } else {
+                buffer = ByteBuffer.allocateDirect(classCapacity(index));
+                this.misses.increment();
+            }
+        }
+
+        buffer.clear().limit(capacity);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #acquire(int)} to the pool.
+     * Buffers that do not belong to a size class, or that arrive while the class is full, are dropped.
+     *
+     * @param buffer The buffer to release, may be {@code null}.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect())
+            return;
+
+        int index = classIndex(buffer.capacity());
+        if (index >= 0 && classCapacity(index) == buffer.capacity()) {
+            this.classes[index].offer(buffer);
+        }
+    }
+
+    /**
+     * @return The number of acquisitions served by an idle pooled buffer.
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return The number of acquisitions that had to allocate a new buffer.
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    private static int classIndex(int capacity) {
+        for (int index = 0; index < CLASS_COUNT; index++) {
+            if (capacity <= classCapacity(index))
+                return index;
+        }
+
+        return -1;
+    }
+
+    private static int classCapacity(int index) {
+        return 1 << (MIN_CLASS_SHIFT + index * 2);
+    }
+}
@@ -0,0 +1,239 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.DiscordPlugin;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs response callbacks and listeners away from the IPC event loop.
+ * <p>
+ * Each handler object gets its own lane: its callbacks run one at a time and in order, while different handlers
+ * run in parallel on the backing executor (a virtual thread per task by default), even when they are instances of
+ * the same class or lambdas from the same call site. Lanes are keyed by handler identity and only weakly reference
+ * their handler, so a lane goes away with the handler. Callbacks that must stay ordered without sharing a handler
+ * object can use a named lane instead. A handler that throws only has its exception logged, and a slow handler only
+ * delays itself.
+ * <p>
+ * Metrics are kept per handler class, with lambdas reported under the class that declares them, and record how
+ * often handlers ran, how often they failed and how long they took.
+ */
+public final class DiscordCallbackExecutor implements AutoCloseable {
+    private static final long SLOW_CALLBACK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final String LAMBDA_MARKER = "$$Lambda";
+
+    private final ExecutorService executor;
+    private final Map<LaneKey, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<String, Lane> namedLanes = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collectedHandlers = new ReferenceQueue<>();
+    private final Map<String, Metrics> metrics = new ConcurrentHashMap<>();
+
+    public DiscordCallbackExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public DiscordCallbackExecutor() {
+        this(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Runs a callback on the lane of the given handler.
+     *
+     * @param handler The handler the callback belongs to. Callbacks of the same handler object run in order.
+     * @param task    The callback invocation.
+     */
+    public void execute(Object handler, Runnable task) {
+        expungeCollectedHandlers();
+        Lane lane = this.lanes.get(new LaneKey(handler, null));
+        if (lane == null) {
+            lane = this.lanes.computeIfAbsent(new LaneKey(handler, this.collectedHandlers),
+                    key -> new Lane(metrics(handlerName(handler))));
+        }
+
+        lane.submit(task);
+    }
+
+    /**
+     * Runs a callback on a named lane. Callbacks submitted under the same name run one at a time and in order.
+     *
+     * @param name The name of the lane, which also names it in the metrics.
+     * @param task The callback invocation.
+     */
+    public void executeNamed(String name, Runnable task) {
+        this.namedLanes.computeIfAbsent(name, key -> new Lane(metrics(key))).submit(task);
+    }
+
+    /**
+     * @return A snapshot of the metrics of every handler class or named lane that has run, keyed and sorted by name.
+     */
+    public Map<String, HandlerMetrics> getMetrics() {
+        Map<String, HandlerMetrics> snapshot = new TreeMap<>();
+        for (Map.Entry<String, Metrics> entry : this.metrics.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        return snapshot;
+    }
+
+    private Metrics metrics(String name) {
+        return this.metrics.computeIfAbsent(name, Metrics::new);
+    }
+
+    /**
+     * Removes the lanes of handlers that have been garbage collected. Such a lane has nothing queued, since a
+     * queued callback keeps its handler reachable.
+     */
+    private void expungeCollectedHandlers() {
+        Object key;
+        while ((key = this.collectedHandlers.poll()) != null) {
+            this.lanes.remove(key);
+        }
+    }
+
+    /**
+     * @return The class name of the handler, or of the class declaring it if it is a lambda.
+     */
+    private static String handlerName(Object handler) {
+        String name = handler.getClass().getName();
+        int lambda = name.indexOf(LAMBDA_MARKER);
+        return lambda < 0 ? name : name.substring(0, lambda) + " (lambda)";
+    }
+
+    /**
+     * Stops accepting callbacks. Callbacks that were already submitted still run.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * Latency metrics of the handlers of one class, or of one named lane.
+     *
+     * @param invocations The number of times the handler ran.
+     * @param failures    The number of times it threw.
+     * @param totalNanos  The total time spent in it.
+     * @param maxNanos    The longest single run.
+     */
+    public record HandlerMetrics(long invocations, long failures, long totalNanos, long maxNanos) {
+        public long averageNanos() {
+            return this.invocations == 0 ? 0 : this.totalNanos / this.invocations;
+        }
+    }
+
+    /**
+     * Identifies a lane by the identity of its handler, without keeping the handler reachable.
+     */
+    private static final class LaneKey extends WeakReference<Object> {
+        private final int hash;
+
+        private LaneKey(Object handler, ReferenceQueue<Object> queue) {
+            super(handler, queue);
+            this.hash = System.identityHashCode(handler);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+
+            Object handler = get();
+            return handler != null && other instanceof LaneKey key && key.get() == handler;
+        }
+    }
+
+    private static final class Metrics {
+        private final String name;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Metrics(String name) {
+            this.name = name;
+        }
+
+        private HandlerMetrics snapshot() {
+            return new HandlerMetrics(this.invocations.sum(), this.failures.sum(), this.totalNanos.sum(), this.maxNanos.get());
+        }
+    }
+
+    private final class Lane {
+        private final Metrics metrics;
+        private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Lane(Metrics metrics) {
+            this.metrics = metrics;
+        }
+
+        private void submit(Runnable task) {
+            this.queue.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!this.scheduled.compareAndSet(false, true))
+                return;
+
+            try {
+                DiscordCallbackExecutor.this.executor.execute(this::drain);
+            } catch (RejectedExecutionException exception) {
+                // Closed, so the remaining callbacks are dropped
+                this.queue.clear();
+                this.scheduled.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                Runnable task;
+                while ((task = this.queue.poll()) != null) {
+                    run(task);
+                }
+            } finally {
+                this.scheduled.set(false);
+            }
+
+            // A task may have arrived after the last poll but before the flag was cleared
+            if (!this.queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void run(Runnable task) {
+            Metrics metrics = this.metrics;
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } catch (RuntimeException exception) {
+                metrics.failures.increment();
+                DiscordPlugin.getLogger().error("Discord IPC callback {} failed", metrics.name, exception);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                metrics.invocations.increment();
+                metrics.totalNanos.add(elapsed);
+                metrics.maxNanos.accumulate(elapsed);
+                if (elapsed > SLOW_CALLBACK_NANOS) {
+                    DiscordPlugin.getLogger().warn("Discord IPC callback {} took {} ms", metrics.name, TimeUnit.NANOSECONDS.toMillis(elapsed));
+                }
+            }
+        }
+    }
+}
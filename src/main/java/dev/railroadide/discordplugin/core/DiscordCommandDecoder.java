@@ -0,0 +1,228 @@
+package dev.railroadide.discordplugin.core;
+
+import com.google.gson.JsonSyntaxException;
+import dev.railroadide.discordplugin.data.DiscordPayload;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Routing-first decoder for inbound IPC payloads.
+ * <p>
+ * Only the top-level object is scanned: {@code cmd}, {@code evt} and {@code nonce} are decoded straight from
+ * the UTF-8 bytes (the nonce into a {@code long}, as this client only issues numeric nonces), while
+ * {@code data} and {@code args} are kept as {@link DiscordPayload} slices and parsed only when a handler asks
+ * for them. No JSON tree is built for frames whose data nobody reads.
+ */
+public final class DiscordCommandDecoder {
+    private static final byte[] CMD = ascii("cmd");
+    private static final byte[] EVT = ascii("evt");
+    private static final byte[] NONCE = ascii("nonce");
+    private static final byte[] DATA = ascii("data");
+    private static final byte[] ARGS = ascii("args");
+    private static final byte[] NULL = ascii("null");
+
+    private static final DiscordCommand.Type[] TYPES = DiscordCommand.Type.values();
+    private static final byte[][] TYPE_NAMES = names(TYPES);
+    private static final DiscordCommand.Event[] EVENTS = DiscordCommand.Event.values();
+    private static final byte[][] EVENT_NAMES = names(EVENTS);
+
+    private DiscordCommandDecoder() {
+    }
+
+    /**
+     * Decodes the routing fields of a payload.
+     *
+     * @param bytes The UTF-8 JSON payload of a frame. The array is retained by the returned command.
+     * @return The decoded command.
+     * @throws JsonSyntaxException If the payload is not a JSON object.
+     */
+    public static DiscordCommand decode(byte[] bytes) {
+        var command = new DiscordCommand();
+        int position = expect(bytes, skipWhitespace(bytes, 0), '{');
+        position = skipWhitespace(bytes, position);
+        if (position < bytes.length && bytes[position] == '}')
+            return command;
+
+        while (true) {
+            int keyStart = expect(bytes, position, '"');
+            int keyEnd = skipString(bytes, keyStart - 1) - 1;
+            position = expect(bytes, skipWhitespace(bytes, keyEnd + 1), ':');
+
+            int valueStart = skipWhitespace(bytes, position);
+            int valueEnd = skipValue(bytes, valueStart);
+            assign(command, bytes, keyStart, keyEnd, valueStart, valueEnd);
+
+            position = skipWhitespace(bytes, valueEnd);
+            if (position >= bytes.length)
+                throw new JsonSyntaxException("Unterminated object in Discord IPC payload");
+
+            if (bytes[position] == '}')
+                return command;
+
+            position = skipWhitespace(bytes, expect(bytes, position, ','));
+        }
+    }
+
+    private static void assign(DiscordCommand command, byte[] bytes, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        if (matches(bytes, keyStart, keyEnd, CMD)) {
+            command.setCmd(lookup(bytes, valueStart, valueEnd, TYPES, TYPE_NAMES));
+        } else if (matches(bytes, keyStart, keyEnd, EVT)) {
+            command.setEvent(lookup(bytes, valueStart, valueEnd, EVENTS, EVENT_NAMES));
+        } else if (matches(bytes, keyStart, keyEnd, NONCE)) {
+            command.setNonce(readNonce(bytes, valueStart, valueEnd));
+        } else if (matches(bytes, keyStart, keyEnd, DATA)) {
+            command.setData(payload(bytes, valueStart, valueEnd));
+        } else if (matches(bytes, keyStart, keyEnd, ARGS)) {
+            command.setArgs(payload(bytes, valueStart, valueEnd));
+        }
+    }
+
+    private static DiscordPayload payload(byte[] bytes, int start, int end) {
+        if (matches(bytes, start, end, NULL))
+            return null;
+
+        return new DiscordPayload(bytes, start, end - start);
+    }
+
+    private static <E extends Enum<E>> E lookup(byte[] bytes, int start, int end, E[] values, byte[][] names) {
+        if (!isString(bytes, start))
+            return null;
+
+        for (int index = 0; index < values.length; index++) {
+            if (matches(bytes, start + 1, end - 1, names[index]))
+                return values[index];
+        }
+
+        return null;
+    }
+
+    /**
+     * Parses a nonce string written by {@link DiscordCommandEncoder}. Anything else, including nonces too long
+     * to be ours, becomes {@link DiscordCommand#FOREIGN_NONCE}.
+     */
+    private static long readNonce(byte[] bytes, int start, int end) {
+        if (!isString(bytes, start))
+            return DiscordCommand.NO_NONCE;
+
+        int digits = end - start - 2;
+        if (digits <= 0 || digits > 18)
+            return DiscordCommand.FOREIGN_NONCE;
+
+        long nonce = 0;
+        for (int index = start + 1; index < end - 1; index++) {
+            int digit = bytes[index] - '0';
+            if (digit < 0 || digit > 9)
+                return DiscordCommand.FOREIGN_NONCE;
+
+            nonce = nonce * 10 + digit;
+        }
+
+        return nonce > 0 ? nonce : DiscordCommand.FOREIGN_NONCE;
+    }
+
+    private static boolean isString(byte[] bytes, int position) {
+        return position < bytes.length && bytes[position] == '"';
+    }
+
+    private static boolean matches(byte[] bytes, int start, int end, byte[] expected) {
+        if (end - start != expected.length)
+            return false;
+
+        for (int index = 0; index < expected.length; index++) {
+            if (bytes[start + index] != expected[index])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static int skipValue(byte[] bytes, int position) {
+        if (position >= bytes.length)
+            throw new JsonSyntaxException("Missing value in Discord IPC payload");
+
+        byte first = bytes[position];
+        if (first == '"')
+            return skipString(bytes, position);
+
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            while (position < bytes.length) {
+                byte b = bytes[position];
+                if (b == '"') {
+                    position = skipString(bytes, position);
+                    continue;
+                }
+
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (--depth == 0)
+                        return position + 1;
+                }
+
+                position++;
+            }
+
+            throw new JsonSyntaxException("Unterminated value in Discord IPC payload");
+        }
+
+        while (position < bytes.length) {
+            byte b = bytes[position];
+            if (b == ',' || b == '}' || b == ']' || isWhitespace(b))
+                break;
+
+            position++;
+        }
+
+        return position;
+    }
+
+    /**
+     * @return The position just past the closing quote of the string starting at {@code position}.
+     */
+    private static int skipString(byte[] bytes, int position) {
+        for (int index = position + 1; index < bytes.length; index++) {
+            byte b = bytes[index];
+            if (b == '\\') {
+                index++;
+            } else if (b == '"') {
+                return index + 1;
+            }
+        }
+
+        throw new JsonSyntaxException("Unterminated string in Discord IPC payload");
+    }
+
+    private static int skipWhitespace(byte[] bytes, int position) {
+        while (position < bytes.length && isWhitespace(bytes[position])) {
+            position++;
+        }
+
+        return position;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static int expect(byte[] bytes, int position, char expected) {
+        if (position >= bytes.length || bytes[position] != expected)
+            throw new JsonSyntaxException("Expected '" + expected + "' at offset " + position + " in Discord IPC payload");
+
+        return position + 1;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[][] names(Enum<?>[] values) {
+        var names = new byte[values.length][];
+        for (int index = 0; index < values.length; index++) {
+            names[index] = ascii(values[index].name());
+        }
+
+        return names;
+    }
+}
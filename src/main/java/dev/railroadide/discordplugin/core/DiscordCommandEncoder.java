@@ -0,0 +1,129 @@
+package dev.railroadide.discordplugin.core;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire encoder for outbound IPC messages.
+ * <p>
+ * Commands are streamed as compact JSON directly into pooled frame buffers, so no {@code JsonElement}
+ * tree or intermediate {@link String} is built for a publish. The arguments object is written by the
+ * given {@link Gson} instance, which should not pretty print, unless it is {@link DiscordEncodedArgs}, whose bytes
+ * are copied as they are.
+ */
+public final class DiscordCommandEncoder {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final DiscordBufferPool bufferPool;
+    private final Gson gson;
+
+    public DiscordCommandEncoder(DiscordBufferPool bufferPool, Gson gson) {
+        this.bufferPool = bufferPool;
+        this.gson = gson;
+    }
+
+    /**
+     * Encodes a command frame.
+     *
+     * @param command The command whose type, event and nonce are written.
+     * @param args    The arguments object, or {@code null} to omit {@code args}.
+     * @param opcode  The frame opcode.
+     * @return The encoded frame, to be released to the pool once written.
+     * @throws IOException If the arguments cannot be written.
+     */
+    public ByteBuffer encode(DiscordCommand command, Object args, int opcode) throws IOException {
+        if (args instanceof DiscordEncodedArgs encodedArgs)
+            return encode(command, encodedArgs.encodedJson(), opcode);
+
+        return encodeStreamed(command, args, opcode);
+    }
+
+    /**
+     * Encodes a command frame, streaming the arguments through {@link Gson} even if they are already encoded.
+     */
+    ByteBuffer encodeStreamed(DiscordCommand command, Object args, int opcode) throws IOException {
+        var writer = new FrameWriter(this.bufferPool, INITIAL_CAPACITY);
+        try {
+            var json = new JsonWriter(writer);
+            json.beginObject();
+            if (command.getCmd() != null) {
+                json.name("cmd").value(command.getCmd().name());
+            }
+
+            if (args != null) {
+                json.name("args");
+                this.gson.toJson(args, args.getClass(), json);
+            }
+
+            if (command.getEvent() != null) {
+                json.name("evt").value(command.getEvent().name());
+            }
+
+            if (command.hasNonce()) {
+                json.name("nonce").value(Long.toString(command.getNonce()));
+            }
+
+            json.endObject();
+            return writer.finish(opcode);
+        } catch (IOException | RuntimeException exception) {
+            writer.discard();
+            throw exception;
+        }
+    }
+
+    /**
+     * Encodes a command frame around arguments that are already encoded, writing the same JSON as
+     * {@link #encodeStreamed(DiscordCommand, Object, int)} with a single copy of the argument bytes.
+     */
+    ByteBuffer encode(DiscordCommand command, byte[] args, int opcode) throws IOException {
+        var writer = new FrameWriter(this.bufferPool, args.length + INITIAL_CAPACITY);
+        try {
+            // Command and event names are plain ASCII and nonces are digits, so nothing here needs escaping
+            writer.append('{');
+            String separator = "";
+            if (command.getCmd() != null) {
+                writer.append("\"cmd\":\"").append(command.getCmd().name()).append('"');
+                separator = ",";
+            }
+
+            writer.append(separator).append("\"args\":");
+            writer.writeEncoded(args);
+            if (command.getEvent() != null) {
+                writer.append(",\"evt\":\"").append(command.getEvent().name()).append('"');
+            }
+
+            if (command.hasNonce()) {
+                writer.append(",\"nonce\":\"").append(Long.toString(command.getNonce())).append('"');
+            }
+
+            writer.append('}');
+            return writer.finish(opcode);
+        } catch (IOException | RuntimeException exception) {
+            writer.discard();
+            throw exception;
+        }
+    }
+
+    /**
+     * Encodes an arbitrary message, such as the handshake, as a frame.
+     *
+     * @param message The message to serialize.
+     * @param opcode  The frame opcode.
+     * @return The encoded frame, to be released to the pool once written.
+     * @throws IOException If the message cannot be written.
+     */
+    public ByteBuffer encodeMessage(Object message, int opcode) throws IOException {
+        var writer = new FrameWriter(this.bufferPool, INITIAL_CAPACITY);
+        try {
+            this.gson.toJson(message, message.getClass(), new JsonWriter(writer));
+            return writer.finish(opcode);
+        } catch (RuntimeException exception) {
+            writer.discard();
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package dev.railroadide.discordplugin.core;
+
+import com.google.gson.JsonParseException;
+import dev.railroadide.discordplugin.DiscordPlugin;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Owns the connection to Discord: opening the channel, sending the handshake, the reader thread and reconnecting.
+ * <p>
+ * The supervisor is a state machine confined to the {@link DiscordCore} event loop:
+ * <pre>
+ * DISCONNECTED -> CONNECTING -> HANDSHAKING -> READY
+ *                     ^              |           |
+ *                     +-- BACKOFF <--+-----------+
+ * </pre>
+ * A failed attempt or a lost connection moves to {@link State#BACKOFF}, from which the next attempt is scheduled
+ * with exponential backoff and jitter, or to {@link State#DISCONNECTED} if reconnecting is turned off. A handshake
+ * that Discord does not answer with READY in time counts as a lost connection. Exactly one reader thread exists per
+ * open channel.
+ */
+public final class DiscordConnectionSupervisor {
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final long HANDSHAKE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(15);
+    private static final long MIN_POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final DiscordCore core;
+    private final BooleanSupplier shouldReconnect;
+    private volatile State state = State.DISCONNECTED;
+    private DiscordIPCChannel channel;
+    private int failedAttempts;
+    private long retryGeneration;
+
+    DiscordConnectionSupervisor(DiscordCore core, BooleanSupplier shouldReconnect) {
+        this.core = core;
+        this.shouldReconnect = shouldReconnect;
+    }
+
+    /**
+     * Opens the IPC channel for the current operating system and configures it for the reader.
+     * Channels that support it are put in blocking mode so the reader sleeps until a frame arrives.
+     *
+     * @return The configured DiscordIPCChannel instance.
+     * @throws IOException If an I/O error occurs while trying to connect to the IPC channel.
+     */
+    private DiscordIPCChannel openIPCChannel() throws IOException {
+        DiscordIPCChannel channel = DiscordCore.findIPCChannel(this.core.getIpcPath());
+        channel.configureBlocking(channel.supportsConcurrentReadWrite());
+        return channel;
+    }
+
+    /**
+     * @return The current state. May be read from any thread.
+     */
+    public State getState() {
+        return this.state;
+    }
+
+    private void setState(State state) {
+        if (this.state == state)
+            return;
+
+        this.state = state;
+        this.core.onConnectionStateChanged(state);
+    }
+
+    /**
+     * @return The open channel while handshaking or ready, otherwise {@code null}.
+     */
+    DiscordIPCChannel getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Starts connecting if the supervisor is idle. Does nothing while a connection is open, being opened or
+     * waiting out a backoff.
+     */
+    void connect() {
+        if (this.state == State.DISCONNECTED) {
+            attempt();
+        }
+    }
+
+    /**
+     * Starts connecting if the supervisor is idle and reconnecting is turned on.
+     */
+    void reconnectIfIdle() {
+        if (this.shouldReconnect.getAsBoolean()) {
+            connect();
+        }
+    }
+
+    /**
+     * Called when a Discord IPC socket has just appeared, usually because Discord started. Skips any backoff
+     * that is in progress, since the next attempt is now likely to succeed.
+     */
+    void onChannelAvailable() {
+        if (this.state == State.BACKOFF) {
+            attempt();
+        } else {
+            reconnectIfIdle();
+        }
+    }
+
+    private void attempt() {
+        this.retryGeneration++;
+        setState(State.CONNECTING);
+
+        DiscordIPCChannel opened;
+        try {
+            opened = openIPCChannel();
+        } catch (IOException exception) {
+            if (this.failedAttempts == 0) {
+                DiscordPlugin.getLogger().warn("Failed to connect to Discord IPC channel: {}", exception.getMessage());
+            }
+
+            retry();
+            return;
+        }
+
+        this.channel = opened;
+        setState(State.HANDSHAKING);
+        try {
+            this.core.sendHandshake();
+        } catch (IOException exception) {
+            DiscordPlugin.getLogger().error("Failed to send handshake to Discord IPC channel", exception);
+            closeQuietly(opened);
+            this.channel = null;
+            retry();
+            return;
+        }
+
+        startReader(opened);
+        scheduleHandshakeTimeout(opened);
+    }
+
+    /**
+     * Gives up on a channel that is still handshaking once the timeout has passed, for example because Discord is
+     * still starting up or is stuck, so the connection backs off instead of waiting for READY forever.
+     */
+    private void scheduleHandshakeTimeout(DiscordIPCChannel opened) {
+        this.core.schedule(() -> {
+            if (this.state != State.HANDSHAKING || this.channel != opened)
+                return;
+
+            DiscordPlugin.getLogger().warn("Discord did not answer the handshake within {} s",
+                    TimeUnit.NANOSECONDS.toSeconds(HANDSHAKE_TIMEOUT_NANOS));
+            onDisconnected(opened);
+        }, HANDSHAKE_TIMEOUT_NANOS);
+    }
+
+    /**
+     * Called when Discord has answered the handshake with READY.
+     */
+    void onReady() {
+        setState(State.READY);
+        this.failedAttempts = 0;
+    }
+
+    /**
+     * Called when the given channel stopped working, either because its reader ended or because a write failed.
+     * Losing a channel that is no longer current is ignored.
+     */
+    void onDisconnected(DiscordIPCChannel lost) {
+        if (lost == null || lost != this.channel)
+            return;
+
+        closeQuietly(lost);
+        this.channel = null;
+        // Leave READY first, so callbacks of the failed requests cannot send anything on the closed channel
+        retry();
+        this.core.onConnectionLost();
+    }
+
+    private void retry() {
+        if (this.core.isShuttingDown() || !this.shouldReconnect.getAsBoolean()) {
+            setState(State.DISCONNECTED);
+            return;
+        }
+
+        setState(State.BACKOFF);
+        long delayNanos = nextBackoffNanos(this.failedAttempts++);
+        long generation = ++this.retryGeneration;
+        DiscordPlugin.getLogger().debug("Retrying Discord IPC connection in {} ms", TimeUnit.NANOSECONDS.toMillis(delayNanos));
+        this.core.schedule(() -> {
+            if (this.retryGeneration == generation && this.state == State.BACKOFF) {
+                attempt();
+            }
+        }, delayNanos);
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half of the delay is fixed and half is random, so clients that
+     * lost Discord at the same moment do not retry in lockstep.
+     */
+    private static long nextBackoffNanos(int failedAttempts) {
+        long ceiling = INITIAL_BACKOFF_NANOS << Math.min(failedAttempts, 20);
+        ceiling = Math.min(ceiling, MAX_BACKOFF_NANOS);
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    /**
+     * Closes the channel and stops reconnecting.
+     */
+    void close() {
+        this.retryGeneration++;
+        if (this.channel != null) {
+            closeQuietly(this.channel);
+            this.channel = null;
+        }
+
+        setState(State.DISCONNECTED);
+    }
+
+    private void startReader(DiscordIPCChannel channel) {
+        var decoder = new DiscordFrameDecoder(this.core.getBufferPool(), this.core.getMaxFrameLength());
+        Thread.ofVirtual()
+                .name("discord-ipc-reader")
+                .start(() -> readLoop(channel, decoder));
+    }
+
+    /**
+     * Reads frames until the channel closes, posting each to the event loop. Blocking channels park the reader
+     * inside {@link DiscordIPCChannel#read(ByteBuffer)}, so frames are handled as soon as they arrive and
+     * nothing wakes up while Discord is quiet. Non-blocking channels fall back to polling with an
+     * exponential backoff that resets whenever a frame is received.
+     */
+    private void readLoop(DiscordIPCChannel channel, DiscordFrameDecoder decoder) {
+        long pollIntervalNanos = MIN_POLL_INTERVAL_NANOS;
+        while (!this.core.isShuttingDown() && channel.isOpen()) {
+            try {
+                var response = decoder.read(channel);
+                if (response == null) {
+                    LockSupport.parkNanos(pollIntervalNanos);
+                    pollIntervalNanos = Math.min(pollIntervalNanos * 2, MAX_POLL_INTERVAL_NANOS);
+                    continue;
+                }
+
+                pollIntervalNanos = MIN_POLL_INTERVAL_NANOS;
+
+                DiscordCommand command;
+                try {
+                    command = DiscordCommandDecoder.decode(response.payload());
+                } catch (JsonParseException exception) {
+                    // Frame boundaries are intact, so only this payload is lost
+                    DiscordPlugin.getLogger().error("Received malformed payload from Discord IPC channel", exception);
+                    continue;
+                }
+
+                this.core.post(() -> this.core.handleCommand(command));
+            } catch (ClosedChannelException | EOFException exception) {
+                break;
+            } catch (IOException exception) {
+                // A malformed frame leaves the stream out of sync, so the connection cannot be reused
+                DiscordPlugin.getLogger().error("Failed to receive command from Discord IPC channel", exception);
+                break;
+            }
+        }
+
+        this.core.post(() -> onDisconnected(channel));
+    }
+
+    static void closeQuietly(DiscordIPCChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    public enum State {
+        DISCONNECTED,
+        CONNECTING,
+        HANDSHAKING,
+        READY,
+        BACKOFF
+    }
+}
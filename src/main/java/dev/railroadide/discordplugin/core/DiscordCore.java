@@ -1,12 +1,15 @@
 package dev.railroadide.discordplugin.core;
 
 import dev.railroadide.discordplugin.DiscordPlugin;
+import dev.railroadide.discordplugin.activity.discord.DiscordActivityFingerprint;
 import dev.railroadide.discordplugin.activity.discord.DiscordActivityManager;
 import dev.railroadide.discordplugin.data.*;
 import dev.railroadide.discordplugin.event.DiscordCommand;
 import dev.railroadide.discordplugin.event.DiscordEventHandler;
 import dev.railroadide.discordplugin.event.DiscordEvents;
+import dev.railroadide.discordplugin.event.DiscordReadyEvent;
 import dev.railroadide.discordplugin.impl.UnixDiscordIPCChannel;
+import dev.railroadide.discordplugin.impl.UnixDiscordSocketDiscovery;
 import dev.railroadide.discordplugin.impl.WindowsDiscordIPCChannel;
 import dev.railroadide.railroad.utility.OperatingSystem;
 import lombok.Getter;
@@ -14,57 +17,130 @@ import lombok.Setter;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.channels.ClosedChannelException;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayDeque;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 
+/**
+ * Client for the Discord IPC protocol.
+ * <p>
+ * The core is an actor: a single event loop thread owns the channel, the connection state, the queued commands
+ * and the pending requests. Public methods only validate their arguments and post a
+ * message to the loop, so UI and event threads never block on IPC writes or reconnects. The connection itself,
+ * including the reader thread that posts decoded frames to the loop, is owned by a
+ * {@link DiscordConnectionSupervisor}; commands and activity updates wait until it reports a ready connection.
+ * Callbacks and listeners run on a {@link DiscordCallbackExecutor}, never on the loop or the reader.
+ */
 public final class DiscordCore implements AutoCloseable {
     public static final Consumer<DiscordResult> DEFAULT_CALLBACK = result -> {
-        if (result != DiscordResult.OK)
+        if (result != DiscordResult.OK && result != DiscordResult.SUPERSEDED)
             throw new DiscordException(result);
     };
+    private static final int COMMAND_OPCODE = DiscordConnectionState.CONNECTED.ordinal();
+    private static final int MAX_QUEUED_COMMANDS = 64;
+    private static final int ACTIVITY_RESULT_BUFFER = 16;
+    private static final String READY_SNAPSHOT_LANE = "ready-snapshot";
 
-    private final Queue<CommandWithCallback> commandQueue = new ArrayDeque<>();
     @Getter
     private final DiscordActivityManager activityManager;
-    private final Map<String, Consumer<DiscordCommand>> handlers = new ConcurrentHashMap<>();
     private final DiscordEvents events;
-    private final BooleanSupplier shouldReconnectOnActivityUpdate;
-    private DiscordIPCChannel ipcChannel;
+    @Getter
+    private final DiscordBufferPool bufferPool = new DiscordBufferPool();
+    private final DiscordCommandEncoder encoder = new DiscordCommandEncoder(this.bufferPool, DiscordPlugin.WIRE_GSON);
+    private final ScheduledExecutorService eventLoop;
+    private final DiscordConnectionSupervisor supervisor;
+    /**
+     * The socket or pipe this core connects to, or {@code null} for the default one.
+     */
+    @Getter
+    private final String ipcPath;
+    private final Runnable channelAvailableListener;
+    @Getter
+    private final DiscordCallbackExecutor callbackExecutor = new DiscordCallbackExecutor();
+    /**
+     * Publishes the current user whenever Discord reports it, replaying the latest one to new subscribers.
+     */
+    @Getter
+    private final DiscordStatePublisher<DiscordUser> currentUserPublisher = new DiscordStatePublisher<>(this.callbackExecutor, 1);
+    /**
+     * Publishes every change of the connection state, replaying the latest one to new subscribers.
+     */
+    @Getter
+    private final DiscordStatePublisher<DiscordConnectionSupervisor.State> connectionStatePublisher = new DiscordStatePublisher<>(this.callbackExecutor, 1);
+    /**
+     * Publishes the result of every activity update Discord acknowledged or that failed, including skipped
+     * duplicates, which are reported as {@link DiscordResult#OK}.
+     */
+    @Getter
+    private final DiscordStatePublisher<DiscordResult> activityResultPublisher = new DiscordStatePublisher<>(this.callbackExecutor, ACTIVITY_RESULT_BUFFER);
+    private final AtomicLong nonce = new AtomicLong();
+
+    // Owned by the event loop thread
+    private final Map<Object, CommandWithCallback> commandQueue = new LinkedHashMap<>();
+    private final DiscordPendingRequests pendingRequests = new DiscordPendingRequests();
+    private boolean pendingTickScheduled;
     private String clientId;
-    private long nonce;
-    private DiscordConnectionState connectionState;
+    private ActivityUpdate pendingActivity;
+    private boolean activityInFlight;
+    private long acknowledgedActivityFingerprint = DiscordActivityFingerprint.UNKNOWN;
+    private boolean activityFlushScheduled;
+    private boolean closed;
+    private UnixDiscordSocketDiscovery socketDiscovery;
+
+    @Getter
+    private volatile DiscordUser currentUser;
     @Getter
-    private DiscordUser currentUser;
+    private volatile DiscordReadyEvent.Data.Config readyConfig;
+    private volatile Path readySnapshotFile;
     @Setter
     @Getter
-    private long pid = ProcessHandle.current().pid();
-    private boolean isShuttingDown = false;
-    private final CopyOnWriteArrayList<Consumer<DiscordUser>> currentUserListeners = new CopyOnWriteArrayList<>();
+    private volatile long pid = ProcessHandle.current().pid();
+    private volatile boolean isShuttingDown = false;
+    @Getter
+    private volatile int maxFrameLength = DiscordFrameDecoder.DEFAULT_MAX_FRAME_LENGTH;
+    @Getter
+    private volatile DiscordRateLimiter activityRateLimiter = new DiscordRateLimiter();
+    @Setter
+    @Getter
+    private volatile DiscordActivityFingerprint.Policy activityFingerprintPolicy = DiscordActivityFingerprint.Policy.IGNORE_TIMESTAMPS;
+    private final LongAdder skippedActivityUpdates = new LongAdder();
 
-    public DiscordCore(String clientId, BooleanSupplier shouldReconnectOnActivityUpdate) throws DiscordException {
-        this.clientId = clientId;
-        this.shouldReconnectOnActivityUpdate = shouldReconnectOnActivityUpdate;
+    public DiscordCore(String clientId, BooleanSupplier shouldReconnectOnActivityUpdate) {
+        this(clientId, shouldReconnectOnActivityUpdate, null);
+    }
 
-        this.connectionState = DiscordConnectionState.HANDSHAKE;
-        this.nonce = 0L;
+    /**
+     * @param clientId                        The client ID of the Discord application.
+     * @param shouldReconnectOnActivityUpdate Whether to reconnect when an activity is published while disconnected.
+     * @param ipcPath                         The socket or pipe of the Discord client to connect to, or {@code null}
+     *                                        to pick one from {@code DISCORD_IPC_PATH} and {@code DISCORD_INSTANCE_ID}.
+     */
+    public DiscordCore(String clientId, BooleanSupplier shouldReconnectOnActivityUpdate, String ipcPath) {
+        this.clientId = clientId;
+        this.ipcPath = ipcPath;
+        this.supervisor = new DiscordConnectionSupervisor(this, shouldReconnectOnActivityUpdate);
+        this.connectionStatePublisher.submit(this.supervisor.getState());
+        this.channelAvailableListener = () -> post(this.supervisor::onChannelAvailable);
         this.events = new DiscordEvents(this);
-
-        try {
-            this.ipcChannel = findIPCChannel();
-            this.ipcChannel.configureBlocking(false);
-        } catch (IOException exception) {
-            this.connectionState = DiscordConnectionState.ERROR;
-            DiscordPlugin.getLogger().error("Failed to connect to Discord IPC channel", exception);
-            // TODO: Notification in the IDE
-        }
+        this.eventLoop = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "discord-ipc-loop");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         this.activityManager = new DiscordActivityManager(this);
     }
@@ -76,190 +152,482 @@ public final class DiscordCore implements AutoCloseable {
      * @throws IOException If an I/O error occurs while trying to connect to the IPC channel.
      */
     public static DiscordIPCChannel findIPCChannel() throws IOException {
-        return OperatingSystem.CURRENT == OperatingSystem.WINDOWS ?
-                new WindowsDiscordIPCChannel() :
-                new UnixDiscordIPCChannel();
+        return findIPCChannel(null);
+    }
+
+    /**
+     * Opens the IPC channel at the given path for the current operating system.
+     *
+     * @param path The socket or pipe path, or {@code null} for the default one.
+     * @return The DiscordIPCChannel instance for the current OS.
+     * @throws IOException If an I/O error occurs while trying to connect to the IPC channel.
+     */
+    public static DiscordIPCChannel findIPCChannel(String path) throws IOException {
+        if (OperatingSystem.CURRENT == OperatingSystem.WINDOWS)
+            return path == null ? new WindowsDiscordIPCChannel() : new WindowsDiscordIPCChannel(path);
+
+        return path == null ? new UnixDiscordIPCChannel() : new UnixDiscordIPCChannel(path);
     }
 
     /**
-     * Connects to the Discord IPC channel and sends the handshake message.
+     * Connects to the Discord IPC channel on the event loop. The connection supervisor opens the channel,
+     * sends the handshake and keeps reconnecting with backoff if reconnecting is turned on.
      *
-     * @throws RuntimeException If the connection fails or if the IPC channel is shutting down.
+     * @throws RuntimeException If the IPC channel is shutting down.
      */
     public void connect() throws RuntimeException {
         if (this.isShuttingDown)
             throw new RuntimeException("Discord IPC is shutting down");
 
+        post(() -> {
+            if (OperatingSystem.CURRENT != OperatingSystem.WINDOWS) {
+                // Named pipes cannot be watched, so Windows relies on the supervisor's backoff alone
+                this.socketDiscovery = UnixDiscordSocketDiscovery.getInstance();
+                this.socketDiscovery.addListener(this.channelAvailableListener);
+            }
+
+            this.supervisor.connect();
+        });
+    }
+
+    /**
+     * Posts a message to the event loop. Exceptions thrown by the message are logged, so one failing
+     * message never stops the loop.
+     */
+    void post(Runnable message) {
         try {
-            sendHandshake();
-            runCallbacks();
-        } catch (IOException exception) {
-            throw new RuntimeException("Failed to send handshake to Discord IPC channel", exception);
+            this.eventLoop.execute(() -> runMessage(message));
+        } catch (RejectedExecutionException ignored) {
+            // The core has been closed, so there is nothing left to deliver to
         }
     }
 
-    private void runCallbacks() {
-        var thread = new Thread(() -> {
-            while (true) {
-                if (this.isShuttingDown)
-                    break;
-
-                try {
-                    var response = receiveString();
-                    if (response == null)
-                        continue;
-
-                    DiscordCommand command = DiscordPlugin.GSON.fromJson(response.payload(), DiscordCommand.class);
-                    if (command == null)
-                        continue;
-
-                    handleCommand(command);
-                    Thread.sleep(100);
-                } catch (ClosedChannelException exception) {
-                    break;
-                } catch (IOException | InterruptedException exception) {
-                    throw new RuntimeException("Failed to receive command from Discord IPC channel", exception);
-                }
-            }
-        });
+    /**
+     * Posts a message to the event loop like {@link #post(Runnable)}, running {@code rejected} instead if the core
+     * has been closed, so a caller waiting for an answer always gets one.
+     *
+     * @param message  The message.
+     * @param rejected Run instead of the message once the core is closed, on the calling thread if the event loop
+     *                 has already stopped.
+     */
+    private void post(Runnable message, Runnable rejected) {
+        try {
+            this.eventLoop.execute(() -> runMessage(this.closed ? rejected : message));
+        } catch (RejectedExecutionException exception) {
+            runMessage(rejected);
+        }
+    }
 
-        thread.setDaemon(true);
-        thread.start();
+    private static void runMessage(Runnable message) {
+        try {
+            message.run();
+        } catch (RuntimeException exception) {
+            DiscordPlugin.getLogger().error("Failed to process Discord IPC message", exception);
+        }
+    }
+
+    /**
+     * Schedules a message on the event loop, with the same error handling as {@link #post(Runnable)}.
+     */
+    void schedule(Runnable message, long delayNanos) {
+        try {
+            this.eventLoop.schedule(() -> post(message), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // The core has been closed, so there is nothing left to deliver to
+        }
+    }
+
+    boolean isShuttingDown() {
+        return this.isShuttingDown;
     }
 
+    /**
+     * @return The state of the connection to Discord.
+     */
+    public DiscordConnectionSupervisor.State getConnectionState() {
+        return this.supervisor.getState();
+    }
+
+    /**
+     * Called by the supervisor when the connection is lost. Responses to requests sent on it will never arrive.
+     */
+    void onConnectionLost() {
+        // Discord clears the presence of a client that disconnects
+        this.acknowledgedActivityFingerprint = DiscordActivityFingerprint.UNKNOWN;
+        this.pendingRequests.failAll(DiscordResult.DISCONNECTED);
+    }
+
+    /**
+     * Updates the current user. A user equal to the current one is not published again, so READY confirming
+     * the user served from the snapshot causes no re-render.
+     *
+     * @param user The user Discord reported.
+     */
     public void updateCurrentUser(DiscordUser user) {
+        if (user == null || user.equals(this.currentUser))
+            return;
+
         this.currentUser = user;
-        for (Consumer<DiscordUser> listener : this.currentUserListeners) {
+        this.currentUserPublisher.submit(user);
+        saveReadySnapshot();
+    }
+
+    public void updateReadyConfig(DiscordReadyEvent.Data.Config config) {
+        if (config == null || config.equals(this.readyConfig))
+            return;
+
+        this.readyConfig = config;
+        saveReadySnapshot();
+    }
+
+    /**
+     * Serves the user and config of the last READY from a snapshot file until Discord sends a new READY, and
+     * keeps the file up to date afterwards. The file is read on the event loop before anything is sent, so the
+     * snapshot is published before READY can arrive.
+     *
+     * @param file The snapshot file, which need not exist yet.
+     */
+    public void useReadySnapshot(Path file) {
+        this.readySnapshotFile = file;
+        post(() -> {
+            DiscordReadySnapshot snapshot;
             try {
-                listener.accept(user);
-            } catch (Exception exception) {
-                if (DiscordPlugin.getLogger() != null) {
-                    DiscordPlugin.getLogger().error("Failed to run current user listener", exception);
-                }
+                snapshot = DiscordReadySnapshot.load(file);
+            } catch (IOException exception) {
+                DiscordPlugin.getLogger().warn("Failed to read Discord READY snapshot, waiting for READY", exception);
+                return;
             }
-        }
+
+            if (snapshot == null || this.currentUser != null)
+                return;
+
+            this.readyConfig = snapshot.config();
+            this.currentUser = snapshot.user();
+            this.currentUserPublisher.submit(snapshot.user());
+        });
     }
 
-    public void addCurrentUserListener(Consumer<DiscordUser> listener) {
-        if (listener == null)
+    private void saveReadySnapshot() {
+        Path file = this.readySnapshotFile;
+        DiscordUser user = this.currentUser;
+        if (file == null || user == null)
             return;
 
-        if (this.currentUserListeners.contains(listener))
+        // Written off the event loop; snapshots share a lane, so they are written in order
+        var snapshot = new DiscordReadySnapshot(user, this.readyConfig);
+        this.callbackExecutor.executeNamed(READY_SNAPSHOT_LANE, () -> {
+            try {
+                snapshot.save(file);
+            } catch (IOException exception) {
+                DiscordPlugin.getLogger().warn("Failed to write Discord READY snapshot", exception);
+            }
+        });
+    }
+
+    /**
+     * Called by the supervisor whenever its state changes.
+     */
+    void onConnectionStateChanged(DiscordConnectionSupervisor.State state) {
+        this.connectionStatePublisher.submit(state);
+    }
+
+    /**
+     * Routes a decoded frame using only its nonce and event. Responses go to the callback registered for
+     * their nonce (which may inspect errors with {@link #checkError(DiscordCommand)}), and event data is
+     * parsed only once the handler for the event is known.
+     */
+    void handleCommand(DiscordCommand command) {
+        if (command.hasNonce()) {
+            if (!this.pendingRequests.complete(command.getNonce(), command)) {
+                // Most likely a response that arrived after its request timed out
+                DiscordPlugin.getLogger().warn("Received response for unknown nonce {} from Discord IPC channel", command.getNonce());
+            }
+
             return;
+        }
 
-        this.currentUserListeners.add(listener);
+        if (command.isError()) {
+            DiscordPlugin.getLogger().error("Received error from Discord IPC channel: {}", command);
+        }
+
+        // Unknown events decode to null and events without listeners are dropped, in both cases unparsed
+        DiscordEventHandler<?> handler = this.events.getHandler(command.getEvent());
+        if (handler != null && handler.isListening()) {
+            handler.dispatch(command);
+        }
+    }
 
+    /**
+     * Called by the supervisor once it has opened a channel.
+     */
+    void sendHandshake() throws IOException {
+        var message = new HandshakeMessage(this.clientId);
+        writeFrame(this.encoder.encodeMessage(message, DiscordConnectionState.HANDSHAKE.ordinal()));
+    }
+
+    /**
+     * @return The open channel.
+     * @throws ClosedChannelException If the supervisor has no open channel.
+     */
+    private DiscordIPCChannel openChannel() throws ClosedChannelException {
+        DiscordIPCChannel channel = this.supervisor.getChannel();
+        if (channel == null)
+            throw new ClosedChannelException();
+
+        return channel;
+    }
+
+    /**
+     * Writes a single frame, then returns its buffer to the pool.
+     */
+    private void writeFrame(ByteBuffer frame) throws IOException {
         try {
-            listener.accept(this.currentUser);
-        } catch (Exception exception) {
-            if (DiscordPlugin.getLogger() != null) {
-                DiscordPlugin.getLogger().error("Failed to run current user listener", exception);
+            DiscordIPCChannel channel = openChannel();
+            while (frame.hasRemaining()) {
+                channel.write(frame);
             }
+        } finally {
+            this.bufferPool.release(frame);
         }
     }
 
-    public void removeCurrentUserListener(Consumer<DiscordUser> listener) {
-        this.currentUserListeners.remove(listener);
-    }
+    /**
+     * Writes the given frames with gathering writes, then returns their buffers to the pool.
+     */
+    private void writeFrames(ByteBuffer[] frames) throws IOException {
+        try {
+            long remaining = 0;
+            for (ByteBuffer frame : frames) {
+                remaining += frame.remaining();
+            }
 
-    private void handleCommand(DiscordCommand command) {
-        if (command.isError()) {
-            DiscordPlugin.getLogger().error("Received error from Discord IPC channel: {}", command);
-            return;
+            DiscordIPCChannel channel = openChannel();
+            while (remaining > 0) {
+                remaining -= channel.write(frames);
+            }
+        } finally {
+            for (ByteBuffer frame : frames) {
+                this.bufferPool.release(frame);
+            }
         }
+    }
+
+    /**
+     * Called on the event loop when the IPC channel is ready to send and receive commands.
+     * Registers event handlers and processes any queued commands, flushing them together in one batch.
+     */
+    public void onReady() {
+        this.supervisor.onReady();
+        DiscordPlugin.getLogger().info("Discord IPC channel is ready");
+
+        List<CommandWithCallback> batch = new ArrayList<>();
+        registerEvents(batch);
+        batch.addAll(this.commandQueue.values());
+        this.commandQueue.clear();
 
-        if (command.getNonce() != null) {
-            this.handlers.remove(command.getNonce()).accept(command);
-        } else if (command.getEvent() != null) {
-            DiscordEventHandler<?> handler = this.events.getHandler(command.getEvent());
-            Object data = DiscordPlugin.GSON.fromJson(command.getData(), handler.getDataClass());
-            handler.handleObject(command, data);
+        CommandWithCallback activity = takePendingActivity();
+        if (activity != null) {
+            batch.add(activity);
         }
+
+        sendCommands(batch);
     }
 
-    private DiscordResponse receiveString() throws IOException {
-        var header = ByteBuffer.allocate(Integer.BYTES * 2);
-        this.ipcChannel.read(header);
-        header.flip();
-        header.order(ByteOrder.LITTLE_ENDIAN);
-        if (header.remaining() == 0)
-            return null;
+    private void registerEvents(List<CommandWithCallback> batch) {
+        for (Map.Entry<DiscordCommand.Event, DiscordEventHandler<?>> handler : events.getHandlers()) {
+            if (handler.getValue().shouldRegister()) {
+                batch.add(newSubscription(handler.getKey(), handler.getValue(), true));
+            }
+        }
+    }
 
-        int status = header.getInt();
-        int length = header.getInt();
+    private CommandWithCallback newSubscription(DiscordCommand.Event event, DiscordEventHandler<?> handler, boolean subscribe) {
+        var command = new DiscordCommand();
+        command.setCmd(subscribe ? DiscordCommand.Type.SUBSCRIBE : DiscordCommand.Type.UNSUBSCRIBE);
+        command.setEvent(event);
+        command.setNonce(this.nonce.incrementAndGet());
+        Consumer<DiscordResult> onFailure = result ->
+                DiscordPlugin.getLogger().warn("Failed to {} event {}: {}", command.getCmd(), event.name(), result);
+        return new CommandWithCallback(command, handler.getRegistrationArgs(), response -> {
+            DiscordResult result = checkError(response);
+            if (result != DiscordResult.OK) {
+                onFailure.accept(result);
+                return;
+            }
 
-        var data = ByteBuffer.allocate(length);
-        int read = 0;
-        do {
-            read += (int) this.ipcChannel.read(new ByteBuffer[]{data}, 0, 1);
-        } while (read < length);
+            DiscordPlugin.getLogger().debug("{} event {}", command.getCmd(), event.name());
+        }, onFailure);
+    }
 
-        var message = new String(data.flip().array(), StandardCharsets.UTF_8);
-        var state = DiscordConnectionState.VALUES[status];
-        return new DiscordResponse(state, message);
+    /**
+     * Subscribes to or unsubscribes from an event after its first listener was added or its last one removed.
+     * While not ready nothing is sent, since {@link #onReady()} subscribes to every event that has listeners.
+     *
+     * @param event     The event.
+     * @param subscribe Whether to subscribe or unsubscribe.
+     */
+    public void updateSubscription(DiscordCommand.Event event, boolean subscribe) {
+        post(() -> {
+            DiscordEventHandler<?> handler = this.events.getHandler(event);
+            // A listener may have been added or removed again since this was posted
+            if (handler == null || handler.shouldRegister() != subscribe
+                    || this.supervisor.getState() != DiscordConnectionSupervisor.State.READY)
+                return;
+
+            sendCommand(newSubscription(event, handler, subscribe));
+        });
     }
 
-    private void sendHandshake() throws IOException {
-        var message = new HandshakeMessage(this.clientId);
-        sendString(DiscordPlugin.GSON.toJson(message));
+    /**
+     * Adds a listener for an event. Discord is asked to send the event while it has listeners.
+     *
+     * @param event     The event to listen to.
+     * @param dataClass The class the event data is parsed into, for example {@code DiscordActivitySecretEvent.Data}
+     *                  for {@code ACTIVITY_JOIN} or {@code JsonElement} for events without a data model.
+     * @param listener  The listener, run by the {@link DiscordCallbackExecutor}.
+     * @param <T>       The type of the event data.
+     * @throws IllegalArgumentException If the event does not accept listeners or its data class differs.
+     */
+    public <T> void addEventListener(DiscordCommand.Event event, Class<T> dataClass, Consumer<? super T> listener) {
+        this.events.addListener(event, dataClass, listener);
     }
 
-    private void sendBytes(byte[] bytes) throws IOException {
-        var buffer = ByteBuffer.allocate((Integer.BYTES * 2) + bytes.length);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-        buffer.putInt(this.connectionState.ordinal());
-        buffer.putInt(bytes.length);
-        buffer.put(bytes);
-        this.ipcChannel.write(buffer.flip());
+    public void removeEventListener(DiscordCommand.Event event, Consumer<?> listener) {
+        this.events.removeListener(event, listener);
     }
 
-    private void sendString(String string) throws IOException {
-        sendBytes(string.getBytes(StandardCharsets.UTF_8));
+    /**
+     * Sends several commands at once, writing all of their frames with a single gathering write.
+     */
+    private void sendCommands(List<CommandWithCallback> commands) {
+        if (commands.isEmpty())
+            return;
+
+        var frames = new ByteBuffer[commands.size()];
+        try {
+            for (int index = 0; index < frames.length; index++) {
+                CommandWithCallback commandWithCallback = commands.get(index);
+                frames[index] = this.encoder.encode(commandWithCallback.command(), commandWithCallback.args(), COMMAND_OPCODE);
+            }
+        } catch (IOException | RuntimeException exception) {
+            for (ByteBuffer frame : frames) {
+                this.bufferPool.release(frame);
+            }
+
+            DiscordPlugin.getLogger().error("Failed to encode commands for Discord IPC channel", exception);
+            for (CommandWithCallback command : commands) {
+                command.onFailure().accept(DiscordResult.INTERNAL_ERROR);
+            }
+
+            return;
+        }
+
+        int accepted = 0;
+        for (int index = 0; index < frames.length; index++) {
+            if (registerPending(commands.get(index))) {
+                frames[accepted++] = frames[index];
+            } else {
+                this.bufferPool.release(frames[index]);
+            }
+        }
+
+        if (accepted == 0)
+            return;
+
+        try {
+            writeFrames(accepted == frames.length ? frames : Arrays.copyOf(frames, accepted));
+        } catch (IOException exception) {
+            handleWriteFailure(exception);
+        }
     }
 
     /**
-     * Called when the IPC channel is ready to send and receive commands.
-     * Registers event handlers and processes any queued commands.
+     * A failed write leaves the peer with a partial frame, so the channel is closed rather than reused.
      */
-    public void onReady() {
-        this.connectionState = DiscordConnectionState.CONNECTED;
-        registerEvents();
-        DiscordPlugin.getLogger().info("Discord IPC channel is ready");
+    private void handleWriteFailure(IOException exception) {
+        DiscordPlugin.getLogger().error("Failed to send command to Discord IPC channel", exception);
+        this.supervisor.onDisconnected(this.supervisor.getChannel());
+    }
 
-        while (!this.commandQueue.isEmpty()) {
-            CommandWithCallback commandWithCallback = this.commandQueue.poll();
-            sendCommand(commandWithCallback.command(), commandWithCallback.callback());
+    /**
+     * Adds a command to the pending-request table, failing it with {@link DiscordResult#OVERFLOW} if the
+     * table is full, and makes sure the timing wheel is ticking.
+     *
+     * @return Whether the command was added and should be written.
+     */
+    private boolean registerPending(CommandWithCallback command) {
+        if (!this.pendingRequests.add(command.command().getNonce(), command.callback(), command.onFailure(), System.nanoTime())) {
+            DiscordPlugin.getLogger().warn("Too many pending Discord IPC requests, dropping {}", command.command().getCmd());
+            command.onFailure().accept(DiscordResult.OVERFLOW);
+            return false;
         }
+
+        schedulePendingTick();
+        return true;
     }
 
-    private void registerEvents() {
-        for (Map.Entry<DiscordCommand.Event, DiscordEventHandler<?>> handler : events.getHandlers()) {
-            DiscordCommand.Event event = handler.getKey();
-            DiscordEventHandler<?> eventHandler = handler.getValue();
-            if (!eventHandler.shouldRegister())
-                continue;
-
-            var command = new DiscordCommand();
-            command.setCmd(DiscordCommand.Type.SUBSCRIBE);
-            command.setEvent(event);
-            command.setArgs(DiscordPlugin.GSON.toJsonTree(eventHandler.getRegistrationArgs()));
-            command.setNonce(Long.toString(++this.nonce));
-            sendCommand(command, response -> DiscordPlugin.getLogger().debug("Registered event {}", event.name()));
+    private void schedulePendingTick() {
+        if (this.pendingTickScheduled)
+            return;
+
+        this.pendingTickScheduled = true;
+        schedule(() -> {
+            this.pendingTickScheduled = false;
+            long now = System.nanoTime();
+            this.pendingRequests.advance(now);
+            if (!this.pendingRequests.isEmpty()) {
+                schedulePendingTick();
+            }
+        }, this.pendingRequests.nanosUntilNextTick(System.nanoTime()));
+    }
+
+    /**
+     * Queues a command until the connection is ready. The queue is bounded and a newer SET_ACTIVITY replaces a
+     * queued one, failing it with {@link DiscordResult#SUPERSEDED}; every other command keeps its place. Commands
+     * that do not fit fail with {@link DiscordResult#OVERFLOW}, so however long Discord is down, READY flushes at
+     * most one batch. Event subscriptions never wait here, since {@link #onReady()} subscribes to every event that
+     * has listeners at that point.
+     */
+    private void enqueue(CommandWithCallback command) {
+        DiscordCommand.Type type = command.command().getCmd();
+        Object key = type == DiscordCommand.Type.SET_ACTIVITY ? type : new Object();
+
+        CommandWithCallback replaced = this.commandQueue.remove(key);
+        if (replaced != null) {
+            replaced.onFailure().accept(DiscordResult.SUPERSEDED);
+        } else if (this.commandQueue.size() >= MAX_QUEUED_COMMANDS) {
+            DiscordPlugin.getLogger().warn("Too many Discord IPC commands queued before READY, dropping {}", type);
+            command.onFailure().accept(DiscordResult.OVERFLOW);
+            return;
         }
+
+        this.commandQueue.put(key, command);
     }
 
-    private void sendCommand(DiscordCommand command, Consumer<DiscordCommand> callback) {
-        if (this.connectionState == DiscordConnectionState.HANDSHAKE && command.getEvent() != DiscordCommand.Event.READY) {
-            this.commandQueue.add(new CommandWithCallback(command, callback));
+    private void sendCommand(CommandWithCallback command) {
+        if (this.supervisor.getState() != DiscordConnectionSupervisor.State.READY) {
+            enqueue(command); // Flushed by onReady
             return;
         }
 
-        this.handlers.put(command.getNonce(), callback);
+        ByteBuffer frame;
+        try {
+            frame = this.encoder.encode(command.command(), command.args(), COMMAND_OPCODE);
+        } catch (IOException | RuntimeException exception) {
+            DiscordPlugin.getLogger().error("Failed to encode command for Discord IPC channel", exception);
+            command.onFailure().accept(DiscordResult.INTERNAL_ERROR);
+            return;
+        }
+
+        if (!registerPending(command)) {
+            this.bufferPool.release(frame);
+            return;
+        }
 
         try {
-            sendString(DiscordPlugin.GSON.toJson(command));
+            writeFrame(frame);
         } catch (IOException exception) {
-            throw new RuntimeException("Failed to send command to Discord IPC channel", exception);
+            handleWriteFailure(exception);
         }
     }
 
@@ -271,7 +639,7 @@ public final class DiscordCore implements AutoCloseable {
      */
     public DiscordResult checkError(DiscordCommand command) {
         if (command.getEvent() == DiscordCommand.Event.ERROR) {
-            var error = DiscordPlugin.GSON.fromJson(command.getData(), DiscordError.class);
+            var error = command.getData(DiscordError.class);
             DiscordPlugin.getLogger().error("Received error from Discord IPC channel: {}", error.getMessage());
 
             return DiscordResult.fromCode(error.getCode());
@@ -281,47 +649,277 @@ public final class DiscordCore implements AutoCloseable {
     }
 
     /**
-     * Sends a command to the Discord IPC channel.
+     * Sends a command to the Discord IPC channel. The command is posted to the event loop, so this never blocks.
      * If the command is of type SET_ACTIVITY and the shouldReconnectOnActivityUpdate flag is set,
      * it will attempt to reconnect to the IPC channel if not already connected.
+     * Commands that fail without a response are logged.
      *
      * @param type   The type of command to send.
      * @param args   The arguments for the command.
-     * @param object A callback to handle the response from Discord.
+     * @param object A callback to handle the response from Discord, run by the {@link DiscordCallbackExecutor}.
      * @throws IllegalArgumentException If the command type is null or if the client ID is not set.
      */
     public void sendCommand(DiscordCommand.Type type, Object args, Consumer<DiscordCommand> object) {
+        sendCommand(type, args, object, result -> DiscordPlugin.getLogger().warn("Discord IPC command {} failed: {}", type, result));
+    }
+
+    /**
+     * Sends a command to the Discord IPC channel. The command is posted to the event loop, so this never blocks.
+     *
+     * @param type       The type of command to send.
+     * @param args       The arguments for the command.
+     * @param onResponse A callback to handle the response from Discord, run by the {@link DiscordCallbackExecutor}.
+     * @param onFailure  A callback run by the {@link DiscordCallbackExecutor} if no response arrives, with
+     *                   {@link DiscordResult#TIMED_OUT}, {@link DiscordResult#DISCONNECTED},
+     *                   {@link DiscordResult#OVERFLOW} or {@link DiscordResult#INTERNAL_ERROR} if it could not
+     *                   be encoded.
+     * @throws IllegalArgumentException If the command type is null.
+     */
+    public void sendCommand(DiscordCommand.Type type, Object args, Consumer<DiscordCommand> onResponse, Consumer<DiscordResult> onFailure) {
         if (type == null)
             throw new IllegalArgumentException("Command type cannot be null");
 
-        if (type == DiscordCommand.Type.SET_ACTIVITY && this.shouldReconnectOnActivityUpdate.getAsBoolean()) {
-            try {
-                if (this.ipcChannel == null || !this.ipcChannel.isOpen()) {
-                    this.ipcChannel = findIPCChannel();
-                    this.ipcChannel.configureBlocking(false);
-                    connect();
-                }
-            } catch (IOException | RuntimeException exception) {
-                DiscordPlugin.getLogger().error("Failed to reconnect to Discord IPC channel", exception);
-            }
+        post(() -> handleSendCommand(type, args, onResponse, onFailure), () -> onFailure.accept(DiscordResult.DISCONNECTED));
+    }
+
+    /**
+     * Sends a command to the Discord IPC channel without waiting for earlier commands to be answered.
+     * Any number of commands may be in flight at once; each response is matched to its future by nonce.
+     * <p>
+     * The future completes on a {@link DiscordCallbackExecutor} thread. It completes exceptionally with a
+     * {@link DiscordException} carrying {@link DiscordResult#TIMED_OUT}, {@link DiscordResult#DISCONNECTED} or
+     * {@link DiscordResult#OVERFLOW} if no response arrives, or {@link DiscordResult#INTERNAL_ERROR} if the command
+     * could not be encoded.
+     *
+     * @param type The type of command to send.
+     * @param args The arguments for the command.
+     * @return A future completed with the response from Discord.
+     * @throws IllegalArgumentException If the command type is null.
+     */
+    public CompletableFuture<DiscordCommand> sendCommandAsync(DiscordCommand.Type type, Object args) {
+        var future = new CompletableFuture<DiscordCommand>();
+        sendCommand(type, args, future::complete, result -> future.completeExceptionally(new DiscordException(result)));
+        return future;
+    }
+
+    private void handleSendCommand(DiscordCommand.Type type, Object args, Consumer<DiscordCommand> onResponse, Consumer<DiscordResult> onFailure) {
+        if (type == DiscordCommand.Type.SET_ACTIVITY) {
+            this.supervisor.reconnectIfIdle();
         }
 
+        sendCommand(new CommandWithCallback(newCommand(type), args,
+                response -> this.callbackExecutor.execute(onResponse, () -> onResponse.accept(response)),
+                result -> this.callbackExecutor.execute(onFailure, () -> onFailure.accept(result))));
+    }
+
+    private DiscordCommand newCommand(DiscordCommand.Type type) {
         var command = new DiscordCommand();
         command.setCmd(type);
-        command.setArgs(DiscordPlugin.GSON.toJsonTree(args).getAsJsonObject());
-        command.setNonce(Long.toString(++this.nonce));
-        sendCommand(command, object);
+        command.setNonce(this.nonce.incrementAndGet());
+        return command;
     }
 
-    @Override
-    public void close() throws RuntimeException {
-        try {
-            this.ipcChannel.close();
-        } catch (IOException exception) {
-            throw new RuntimeException("Failed to close Discord IPC channel", exception);
+    /**
+     * Sends a SET_ACTIVITY command through the coalescing activity slot.
+     * <p>
+     * At most one activity update is in flight and at most one waits behind it. An update that has not been
+     * written yet is replaced by a newer one, and its callback receives {@link DiscordResult#SUPERSEDED}, so
+     * bursts of updates only ever send the latest state. An update whose fingerprint matches the last update
+     * Discord acknowledged is not sent at all, and its callback receives {@link DiscordResult#OK}.
+     *
+     * @param args        The SET_ACTIVITY arguments.
+     * @param fingerprint The {@link DiscordActivityFingerprint} of the activity, or
+     *                    {@link DiscordActivityFingerprint#UNKNOWN} to always send it.
+     * @param callback    A callback to handle the result, run by the {@link DiscordCallbackExecutor}.
+     */
+    public void sendActivityUpdate(Object args, long fingerprint, Consumer<DiscordResult> callback) {
+        post(() -> handleActivityUpdate(new ActivityUpdate(args, fingerprint, callback, () -> false)),
+                () -> callback.accept(DiscordResult.DISCONNECTED));
+    }
+
+    /**
+     * Sends a SET_ACTIVITY command through the coalescing activity slot, like
+     * {@link #sendActivityUpdate(Object, long, Consumer)}.
+     * <p>
+     * The future completes on a {@link DiscordCallbackExecutor} thread. Cancelling it before the update is written
+     * drops the update.
+     *
+     * @param args        The SET_ACTIVITY arguments.
+     * @param fingerprint The {@link DiscordActivityFingerprint} of the activity, or
+     *                    {@link DiscordActivityFingerprint#UNKNOWN} to always send it.
+     * @return A future completed with the result of the update.
+     */
+    public CompletableFuture<DiscordResult> sendActivityUpdateAsync(Object args, long fingerprint) {
+        var future = new CompletableFuture<DiscordResult>();
+        post(() -> handleActivityUpdate(new ActivityUpdate(args, fingerprint, future::complete, future::isCancelled)),
+                () -> future.complete(DiscordResult.DISCONNECTED));
+        return future;
+    }
+
+    private void handleActivityUpdate(ActivityUpdate update) {
+        this.supervisor.reconnectIfIdle();
+
+        ActivityUpdate superseded = this.pendingActivity;
+        this.pendingActivity = update;
+        if (superseded != null) {
+            notifyActivityCallback(superseded.callback(), DiscordResult.SUPERSEDED);
+        }
+
+        flushPendingActivity();
+    }
+
+    private void flushPendingActivity() {
+        if (this.supervisor.getState() != DiscordConnectionSupervisor.State.READY)
+            return; // Flushed by onReady once the supervisor has connected
+
+        CommandWithCallback activity = takePendingActivity();
+        if (activity != null) {
+            sendCommand(activity);
+        }
+    }
+
+    /**
+     * Takes the pending activity update if nothing is in flight and the rate limiter has a token, marking it
+     * as in flight. When the limiter holds the update back, a flush is scheduled for when the next token is
+     * available; whatever update is pending by then is the one sent.
+     *
+     * @return The command to send, or {@code null} if there is nothing to send yet.
+     */
+    private CommandWithCallback takePendingActivity() {
+        if (this.activityInFlight || this.pendingActivity == null)
+            return null;
+
+        if (this.pendingActivity.cancelled().getAsBoolean()) {
+            this.pendingActivity = null;
+            return null;
+        }
+
+        long fingerprint = this.pendingActivity.fingerprint();
+        if (fingerprint != DiscordActivityFingerprint.UNKNOWN && fingerprint == this.acknowledgedActivityFingerprint) {
+            // Discord already shows this activity
+            ActivityUpdate skipped = this.pendingActivity;
+            this.pendingActivity = null;
+            this.skippedActivityUpdates.increment();
+            notifyActivityCallback(skipped.callback(), DiscordResult.OK);
+            this.activityResultPublisher.submit(DiscordResult.OK);
+            return null;
+        }
+
+        long now = System.nanoTime();
+        DiscordRateLimiter rateLimiter = this.activityRateLimiter;
+        if (!rateLimiter.tryAcquire(now)) {
+            if (!this.activityFlushScheduled) {
+                this.activityFlushScheduled = true;
+                schedule(() -> {
+                    this.activityFlushScheduled = false;
+                    flushPendingActivity();
+                }, rateLimiter.nanosUntilAvailable(now));
+            }
+
+            return null;
+        }
+
+        ActivityUpdate update = this.pendingActivity;
+        this.pendingActivity = null;
+        this.activityInFlight = true;
+        return new CommandWithCallback(newCommand(DiscordCommand.Type.SET_ACTIVITY), update.args(),
+                response -> completeActivity(update, checkError(response)),
+                result -> completeActivity(update, result));
+    }
+
+    private void completeActivity(ActivityUpdate update, DiscordResult result) {
+        this.activityInFlight = false;
+        if (result == DiscordResult.DISCONNECTED && this.pendingActivity == null && !this.isShuttingDown) {
+            // Still the latest desired presence, so apply it once the supervisor has reconnected
+            this.pendingActivity = update;
+            return;
         }
 
+        this.acknowledgedActivityFingerprint = result == DiscordResult.OK ? update.fingerprint() : DiscordActivityFingerprint.UNKNOWN;
+        notifyActivityCallback(update.callback(), result);
+        this.activityResultPublisher.submit(result);
+        flushPendingActivity();
+    }
+
+    private void notifyActivityCallback(Consumer<DiscordResult> callback, DiscordResult result) {
+        this.callbackExecutor.execute(callback, () -> callback.accept(result));
+    }
+
+    /**
+     * Closes the IPC channel and stops the event loop. Messages posted before this call are still processed, and
+     * commands and activity updates sent afterwards fail with {@link DiscordResult#DISCONNECTED}.
+     */
+    @Override
+    public void close() {
         this.isShuttingDown = true;
+        post(() -> {
+            this.closed = true;
+            // Not getInstance(), which would start discovery again if the plugin already shut it down
+            if (this.socketDiscovery != null) {
+                this.socketDiscovery.removeListener(this.channelAvailableListener);
+            }
+
+            List<CommandWithCallback> queued = new ArrayList<>(this.commandQueue.values());
+            this.commandQueue.clear();
+            for (CommandWithCallback command : queued) {
+                command.onFailure().accept(DiscordResult.DISCONNECTED);
+            }
+
+            this.supervisor.close();
+            this.pendingRequests.failAll(DiscordResult.DISCONNECTED);
+
+            // Parked while not ready or rate limited, so it would otherwise never be answered
+            ActivityUpdate parked = this.pendingActivity;
+            this.pendingActivity = null;
+            if (parked != null) {
+                notifyActivityCallback(parked.callback(), DiscordResult.DISCONNECTED);
+            }
+
+            this.currentUserPublisher.close();
+            this.connectionStatePublisher.close();
+            this.activityResultPublisher.close();
+            this.callbackExecutor.close();
+        });
+        this.eventLoop.shutdown();
+    }
+
+    /**
+     * Sets the maximum payload length accepted from Discord. Frames announcing a larger payload are treated
+     * as corrupt and close the connection. Takes effect the next time the reader is started.
+     *
+     * @param maxFrameLength The maximum payload length in bytes.
+     * @throws IllegalArgumentException If the length is not positive.
+     */
+    public void setMaxFrameLength(int maxFrameLength) {
+        if (maxFrameLength <= 0)
+            throw new IllegalArgumentException("Maximum frame length must be positive");
+
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * @return The number of activity updates that were not sent because Discord already showed the activity.
+     */
+    public long getSkippedActivityUpdateCount() {
+        return this.skippedActivityUpdates.sum();
+    }
+
+    /**
+     * @return The number of commands written to Discord that are still waiting for a response.
+     */
+    public int getInFlightCount() {
+        return this.pendingRequests.getInFlightCount();
+    }
+
+    /**
+     * Replaces the limit applied to activity updates. The new bucket starts full.
+     *
+     * @param capacity The number of updates allowed in a burst.
+     * @param period   The time it takes to refill the whole bucket.
+     * @throws IllegalArgumentException If the capacity or period is not positive.
+     */
+    public void setActivityRateLimit(int capacity, Duration period) {
+        this.activityRateLimiter = new DiscordRateLimiter(capacity, period);
     }
 
     /**
@@ -334,9 +932,13 @@ public final class DiscordCore implements AutoCloseable {
         if (id == null || id.isBlank())
             throw new IllegalArgumentException("Client ID cannot be null or blank");
 
-        this.clientId = id;
+        post(() -> this.clientId = id);
+    }
+
+    private record CommandWithCallback(DiscordCommand command, Object args, Consumer<DiscordCommand> callback,
+                                       Consumer<DiscordResult> onFailure) {
     }
 
-    private record CommandWithCallback(DiscordCommand command, Consumer<DiscordCommand> callback) {
+    private record ActivityUpdate(Object args, long fingerprint, Consumer<DiscordResult> callback, BooleanSupplier cancelled) {
     }
 }
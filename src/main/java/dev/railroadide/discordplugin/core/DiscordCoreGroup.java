@@ -0,0 +1,313 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.activity.discord.DiscordActivity;
+import dev.railroadide.discordplugin.data.DiscordResult;
+import dev.railroadide.discordplugin.data.DiscordUser;
+import dev.railroadide.discordplugin.impl.UnixDiscordSocketDiscovery;
+import dev.railroadide.discordplugin.impl.WindowsDiscordIPCChannel;
+import dev.railroadide.railroad.utility.OperatingSystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The Discord clients the plugin shows its presence in.
+ * <p>
+ * In single-client mode the group holds one {@link DiscordCore} that connects to the default client. In
+ * multi-client mode it holds one core per local client, such as stable, PTB and Canary running side by side
+ * ({@code discord-ipc-0} to {@code discord-ipc-9}), and publishes every activity to all of them. Each core has its
+ * own event loop, reader, connection supervisor and rate limiter, so the clients connect and handshake in parallel,
+ * each has its own connection state, and a stalled client never delays the others.
+ * <p>
+ * In multi-client mode the clients are discovered on a background thread, when the group connects, when a socket
+ * appears and after every publish, since Windows pipes cannot be watched. Clients that start later receive the
+ * latest activity, and the cores of clients that went away are closed once they are no longer connected.
+ */
+public final class DiscordCoreGroup implements AutoCloseable {
+    private final Function<String, DiscordCore> coreFactory;
+    private final boolean multiClient;
+    private final Supplier<List<String>> pathFinder;
+    private final CopyOnWriteArrayList<DiscordCore> cores = new CopyOnWriteArrayList<>();
+    private final Runnable socketListener = this::refresh;
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private UnixDiscordSocketDiscovery socketDiscovery;
+    private DiscordActivity latestActivity;
+    private boolean hasPublished;
+    private boolean closed;
+    private Consumer<DiscordUser> currentUserListener;
+    private DiscordUser relayedUser;
+
+    /**
+     * @param coreFactory Creates a core for a socket or pipe path, or for {@code null} in single-client mode.
+     *                    The group connects it.
+     * @param multiClient Whether to connect to every local Discord client instead of the default one.
+     */
+    public DiscordCoreGroup(Function<String, DiscordCore> coreFactory, boolean multiClient) {
+        this(coreFactory, multiClient, DiscordCoreGroup::findClientPaths);
+    }
+
+    /**
+     * @param pathFinder Lists the socket or pipe paths of the local clients in multi-client mode.
+     */
+    DiscordCoreGroup(Function<String, DiscordCore> coreFactory, boolean multiClient, Supplier<List<String>> pathFinder) {
+        this.coreFactory = coreFactory;
+        this.multiClient = multiClient;
+        this.pathFinder = pathFinder;
+    }
+
+    /**
+     * Connects to the Discord clients in the background.
+     */
+    public void connect() {
+        if (!this.multiClient) {
+            refresh(); // Only creates the core, which connects on its own event loop
+            return;
+        }
+
+        Thread.ofVirtual()
+                .name("discord-ipc-refresh")
+                .start(() -> {
+                    if (OperatingSystem.CURRENT != OperatingSystem.WINDOWS) {
+                        // Scans the socket directories on first use
+                        UnixDiscordSocketDiscovery discovery = UnixDiscordSocketDiscovery.getInstance();
+                        synchronized (this) {
+                            if (this.closed)
+                                return;
+
+                            this.socketDiscovery = discovery;
+                            discovery.addListener(this.socketListener);
+                        }
+                    }
+
+                    refresh();
+                });
+    }
+
+    /**
+     * Adds a core for every client that does not have one yet and sends it the latest activity, and closes the
+     * cores of clients that went away. Blocks while the clients are listed, so it must not run on a thread that
+     * publishes activities. Closing a core fails the activity it holds with {@link DiscordResult#DISCONNECTED}, so
+     * publishes waiting on it still complete.
+     */
+    public void refresh() {
+        List<String> paths = findPaths();
+        List<DiscordCore> removed = new ArrayList<>();
+        synchronized (this) {
+            if (this.closed)
+                return;
+
+            List<String> known = new ArrayList<>();
+            for (DiscordCore core : this.cores) {
+                if (isGone(core, paths)) {
+                    removed.add(core);
+                } else {
+                    known.add(core.getIpcPath());
+                }
+            }
+
+            this.cores.removeAll(removed);
+            for (String path : paths) {
+                if (known.contains(path))
+                    continue;
+
+                DiscordCore core = this.coreFactory.apply(path);
+                this.cores.add(core);
+                core.getCurrentUserPublisher().subscribe(DiscordStatePublisher.subscriber(user -> relayCurrentUser()));
+                core.connect();
+                if (this.hasPublished) {
+                    core.getActivityManager().updateActivityAsync(this.latestActivity);
+                }
+            }
+        }
+
+        for (DiscordCore core : removed) {
+            core.close();
+        }
+
+        if (!removed.isEmpty()) {
+            relayCurrentUser();
+        }
+    }
+
+    /**
+     * Refreshes on a background thread, unless a refresh is already waiting to run.
+     */
+    private void refreshInBackground() {
+        if (!this.refreshScheduled.compareAndSet(false, true))
+            return;
+
+        Thread.ofVirtual()
+                .name("discord-ipc-refresh")
+                .start(() -> {
+                    this.refreshScheduled.set(false);
+                    refresh();
+                });
+    }
+
+    /**
+     * @return Whether the client of a core no longer exists, which is the case once its path is no longer listed
+     * and the core is not connected to it.
+     */
+    private static boolean isGone(DiscordCore core, List<String> paths) {
+        if (core.getIpcPath() == null || paths.contains(core.getIpcPath()))
+            return false;
+
+        DiscordConnectionSupervisor.State state = core.getConnectionState();
+        return state == DiscordConnectionSupervisor.State.DISCONNECTED || state == DiscordConnectionSupervisor.State.BACKOFF;
+    }
+
+    private List<String> findPaths() {
+        if (!this.multiClient)
+            return Collections.singletonList(null);
+
+        return this.pathFinder.get();
+    }
+
+    private static List<String> findClientPaths() {
+        return OperatingSystem.CURRENT == OperatingSystem.WINDOWS ?
+                WindowsDiscordIPCChannel.findPipes() :
+                UnixDiscordSocketDiscovery.getInstance().getSockets();
+    }
+
+    /**
+     * Publishes an activity to every client without blocking.
+     *
+     * @param activity The activity, or {@code null} to clear it.
+     * @return A future completed with {@link DiscordResult#OK} as soon as any client accepts the activity, otherwise
+     * with the result of the first client once every client has answered, or with {@link DiscordResult#DISCONNECTED}
+     * if no client is known yet.
+     */
+    public CompletableFuture<DiscordResult> updateActivityAsync(DiscordActivity activity) {
+        synchronized (this) {
+            this.latestActivity = activity;
+            this.hasPublished = true;
+        }
+
+        if (this.multiClient) {
+            refreshInBackground();
+        }
+
+        List<DiscordCore> targets = List.copyOf(this.cores);
+        if (targets.isEmpty())
+            return CompletableFuture.completedFuture(DiscordResult.DISCONNECTED);
+
+        List<CompletableFuture<DiscordResult>> results = new ArrayList<>(targets.size());
+        for (DiscordCore core : targets) {
+            results.add(core.getActivityManager().updateActivityAsync(activity));
+        }
+
+        var combined = new CompletableFuture<DiscordResult>();
+        var remaining = new AtomicInteger(results.size());
+        for (CompletableFuture<DiscordResult> result : results) {
+            result.whenComplete((value, throwable) -> {
+                if (throwable == null && value == DiscordResult.OK) {
+                    combined.complete(DiscordResult.OK);
+                } else if (remaining.decrementAndGet() == 0) {
+                    combined.complete(firstResult(results));
+                }
+            });
+        }
+
+        return combined;
+    }
+
+    /**
+     * @return The result of the first client, once every client has answered and none accepted the activity.
+     */
+    private static DiscordResult firstResult(List<CompletableFuture<DiscordResult>> results) {
+        CompletableFuture<DiscordResult> first = results.get(0);
+        return first.isCompletedExceptionally() ? DiscordResult.INTERNAL_ERROR : first.join();
+    }
+
+    public void setClientId(String clientId) {
+        for (DiscordCore core : this.cores) {
+            core.setClientId(clientId);
+        }
+    }
+
+    /**
+     * Sets the listener that hears about the user {@link #getCurrentUser()} returns whenever it changes, so the
+     * users of the other clients are never reported. Must be set before the group connects.
+     *
+     * @param listener The listener, called on the delivering core's callback lane.
+     */
+    public synchronized void setCurrentUserListener(Consumer<DiscordUser> listener) {
+        this.currentUserListener = listener;
+    }
+
+    /**
+     * Reports the current user to the listener if it differs from the one reported last, which is the case when
+     * the first client reports a new user or when a client before it reports one or goes away.
+     */
+    private synchronized void relayCurrentUser() {
+        DiscordUser user = getCurrentUser();
+        if (user == null || this.currentUserListener == null || Objects.equals(user, this.relayedUser))
+            return;
+
+        this.relayedUser = user;
+        this.currentUserListener.accept(user);
+    }
+
+    /**
+     * @return The current user of the first client that reported one, or {@code null}.
+     */
+    public DiscordUser getCurrentUser() {
+        for (DiscordCore core : this.cores) {
+            DiscordUser user = core.getCurrentUser();
+            if (user != null)
+                return user;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The connection state of every client, keyed by socket or pipe path ({@code "default"} in
+     * single-client mode).
+     */
+    public Map<String, DiscordConnectionSupervisor.State> getConnectionStates() {
+        Map<String, DiscordConnectionSupervisor.State> states = new LinkedHashMap<>();
+        for (DiscordCore core : this.cores) {
+            states.put(core.getIpcPath() != null ? core.getIpcPath() : "default", core.getConnectionState());
+        }
+
+        return states;
+    }
+
+    /**
+     * @return The cores of the clients, one per connection.
+     */
+    public List<DiscordCore> getCores() {
+        return List.copyOf(this.cores);
+    }
+
+    @Override
+    public void close() {
+        UnixDiscordSocketDiscovery discovery;
+        synchronized (this) {
+            this.closed = true;
+            discovery = this.socketDiscovery;
+        }
+
+        if (discovery != null) {
+            discovery.removeListener(this.socketListener);
+        }
+
+        for (DiscordCore core : this.cores) {
+            core.close();
+        }
+
+        this.cores.clear();
+    }
+}
@@ -0,0 +1,12 @@
+package dev.railroadide.discordplugin.core;
+
+/**
+ * Command arguments that supply their own compact JSON, so {@link DiscordCommandEncoder} copies their bytes
+ * into the frame instead of serializing them.
+ */
+public interface DiscordEncodedArgs {
+    /**
+     * @return The UTF-8 encoded JSON of the arguments, which must not be modified.
+     */
+    byte[] encodedJson();
+}
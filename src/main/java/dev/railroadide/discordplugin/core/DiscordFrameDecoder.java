@@ -0,0 +1,103 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.data.DiscordConnectionState;
+import dev.railroadide.discordplugin.data.DiscordResponse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Incremental decoder for Discord IPC frames.
+ * <p>
+ * A frame is an 8-byte little-endian header (opcode and payload length) followed by a UTF-8 JSON payload.
+ * The decoder keeps partially read headers and payloads between calls, so a frame may arrive in any number
+ * of chunks of any size. Payload lengths above the configured maximum are rejected before anything is allocated.
+ * Payloads are read into buffers borrowed from a {@link DiscordBufferPool} and returned as soon as the frame is decoded.
+ * <p>
+ * Each frame still allocates one payload array and one {@link DiscordResponse}. The array cannot be avoided while
+ * event data is parsed lazily: the decoded {@link dev.railroadide.discordplugin.event.DiscordCommand} keeps slices
+ * of it until a handler reads them, long after the pooled buffer would have been reused.
+ */
+public final class DiscordFrameDecoder {
+    public static final int HEADER_LENGTH = Integer.BYTES * 2;
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 1024 * 1024;
+
+    private final ByteBuffer header = ByteBuffer.allocateDirect(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    private final DiscordBufferPool bufferPool;
+    private final int maxFrameLength;
+    private int opcode;
+    private ByteBuffer payload;
+
+    public DiscordFrameDecoder(DiscordBufferPool bufferPool, int maxFrameLength) {
+        if (maxFrameLength <= 0)
+            throw new IllegalArgumentException("Maximum frame length must be positive");
+
+        this.bufferPool = bufferPool;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * Reads from the channel until a frame is complete or the channel has no more data available.
+     *
+     * @param channel The channel to read from.
+     * @return The next complete frame, or {@code null} if more data is required.
+     * @throws EOFException If the channel reached end of stream.
+     * @throws IOException  If an I/O error occurs or the frame header is invalid.
+     */
+    public DiscordResponse read(DiscordIPCChannel channel) throws IOException {
+        while (true) {
+            ByteBuffer target = this.payload != null ? this.payload : this.header;
+            if (target.hasRemaining()) {
+                int read = channel.read(target);
+                if (read < 0)
+                    throw new EOFException("Discord IPC channel reached end of stream");
+
+                if (read == 0)
+                    return null;
+
+                if (target.hasRemaining())
+                    continue;
+            }
+
+            if (this.payload == null) {
+                beginPayload();
+                continue;
+            }
+
+            return finishFrame();
+        }
+    }
+
+    private void beginPayload() throws IOException {
+        this.header.flip();
+        this.opcode = this.header.getInt();
+        int length = this.header.getInt();
+        this.header.clear();
+
+        if (length < 0 || length > this.maxFrameLength)
+            throw new IOException("Invalid Discord IPC frame length " + Integer.toUnsignedString(length) +
+                    " (maximum is " + this.maxFrameLength + ")");
+
+        this.payload = this.bufferPool.acquire(length);
+    }
+
+    /**
+     * Copies the payload out of the pooled buffer and returns the buffer. The copy outlives the frame, see the
+     * class documentation.
+     */
+    private DiscordResponse finishFrame() {
+        ByteBuffer data = this.payload.flip();
+        this.payload = null;
+
+        var message = new byte[data.remaining()];
+        data.get(message);
+        this.bufferPool.release(data);
+
+        var state = this.opcode >= 0 && this.opcode < DiscordConnectionState.VALUES.length ?
+                DiscordConnectionState.VALUES[this.opcode] :
+                DiscordConnectionState.ERROR;
+        return new DiscordResponse(state, message);
+    }
+}
@@ -14,5 +14,24 @@ public interface DiscordIPCChannel {
 
     int write(ByteBuffer src) throws IOException;
 
+    /**
+     * Writes a sequence of buffers with a single gathering write where the channel supports it.
+     *
+     * @param srcs The buffers to write, in order.
+     * @return The number of bytes written, possibly zero.
+     * @throws IOException If an I/O error occurs.
+     */
+    long write(ByteBuffer[] srcs) throws IOException;
+
     boolean isOpen();
+
+    /**
+     * Whether a blocking {@link #read(ByteBuffer)} may be in progress on one thread while another thread writes.
+     * Channels that cannot do this are kept in non-blocking mode and polled by the reader instead.
+     *
+     * @return {@code true} if reads may block alongside concurrent writes.
+     */
+    default boolean supportsConcurrentReadWrite() {
+        return true;
+    }
 }
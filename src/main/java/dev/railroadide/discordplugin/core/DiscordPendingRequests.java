@@ -0,0 +1,270 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.DiscordPlugin;
+import dev.railroadide.discordplugin.data.DiscordResult;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bounded table of commands waiting for a response, keyed by nonce.
+ * <p>
+ * Entries live in an open-addressing table indexed by the low bits of the nonce. Nonces are handed out in
+ * sequence, so live entries occupy neighbouring slots and lookups rarely probe, with no boxing or string keys.
+ * <p>
+ * Every entry has a deadline enforced by a hashed timing wheel: entries are linked into the slot of the tick
+ * they expire on, so adding, completing and expiring an entry are all constant time however many are pending.
+ * Expired entries fail with {@link DiscordResult#TIMED_OUT}. The table is confined to the {@link DiscordCore}
+ * event loop, which calls {@link #advance(long)} once per tick while anything is pending; only
+ * {@link #getInFlightCount()} may be read from other threads.
+ */
+final class DiscordPendingRequests {
+    static final int DEFAULT_CAPACITY = 1024;
+    static final long DEFAULT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int WHEEL_SIZE = 64;
+
+    private final Entry[] wheel = new Entry[WHEEL_SIZE];
+    private final long[] keys;
+    private final Entry[] values;
+    private final int mask;
+    private final int capacity;
+    private int size;
+    private final long tickNanos;
+    private final long ticksToDeadline;
+    private long tick;
+    private long nextTickNanos;
+    private volatile int inFlightCount;
+
+    DiscordPendingRequests(int capacity, long timeoutNanos, long tickNanos) {
+        this.capacity = capacity;
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.keys = new long[tableSize];
+        this.values = new Entry[tableSize];
+        this.mask = tableSize - 1;
+        this.tickNanos = tickNanos;
+        this.ticksToDeadline = Math.max(1, (timeoutNanos + tickNanos - 1) / tickNanos);
+    }
+
+    DiscordPendingRequests() {
+        this(DEFAULT_CAPACITY, DEFAULT_TIMEOUT_NANOS, DEFAULT_TICK_NANOS);
+    }
+
+    /**
+     * Adds a request that expires after the table's timeout.
+     *
+     * @param nonce      The positive nonce the response will carry.
+     * @param onResponse Called with the response.
+     * @param onFailure  Called if the request times out or is failed by {@link #failAll(DiscordResult)}.
+     * @param nowNanos   The current {@link System#nanoTime()}.
+     * @return Whether the request was added; {@code false} if the table is full.
+     */
+    boolean add(long nonce, Consumer<DiscordCommand> onResponse, Consumer<DiscordResult> onFailure, long nowNanos) {
+        if (this.size >= this.capacity)
+            return false;
+
+        if (this.size == 0) {
+            // The wheel does not tick while idle, so restart it from now
+            this.nextTickNanos = nowNanos + this.tickNanos;
+        }
+
+        long expiryTick = this.tick + this.ticksToDeadline;
+        var entry = new Entry(nonce, onResponse, onFailure, (this.ticksToDeadline - 1) / WHEEL_SIZE);
+        Entry previous = remove(nonce);
+        if (previous != null) {
+            unlink(previous);
+        }
+
+        put(nonce, entry);
+        link(entry, (int) (expiryTick - 1) & (WHEEL_SIZE - 1));
+        this.inFlightCount = this.size;
+        return true;
+    }
+
+    /**
+     * Completes the request with the given nonce.
+     *
+     * @return Whether a request was pending for the nonce.
+     */
+    boolean complete(long nonce, DiscordCommand response) {
+        Entry entry = remove(nonce);
+        if (entry == null)
+            return false;
+
+        unlink(entry);
+        this.inFlightCount = this.size;
+        entry.onResponse.accept(response);
+        return true;
+    }
+
+    /**
+     * Processes every tick that has elapsed, failing the requests whose deadline has passed.
+     *
+     * @param nowNanos The current {@link System#nanoTime()}.
+     */
+    void advance(long nowNanos) {
+        List<Entry> expired = new ArrayList<>();
+        while (this.size > 0 && nowNanos - this.nextTickNanos >= 0) {
+            int slot = (int) this.tick & (WHEEL_SIZE - 1);
+            Entry entry = this.wheel[slot];
+            while (entry != null) {
+                Entry next = entry.next;
+                if (entry.rounds-- <= 0) {
+                    unlink(entry);
+                    remove(entry.nonce);
+                    expired.add(entry);
+                }
+
+                entry = next;
+            }
+
+            this.tick++;
+            this.nextTickNanos += this.tickNanos;
+        }
+
+        this.inFlightCount = this.size;
+
+        // Callbacks may send new requests, so they only run once the wheel is consistent
+        for (Entry entry : expired) {
+            fail(entry, DiscordResult.TIMED_OUT);
+        }
+    }
+
+    /**
+     * Fails every pending request, for example because the connection they were sent on is gone.
+     */
+    void failAll(DiscordResult result) {
+        if (this.size == 0)
+            return;
+
+        List<Entry> failed = new ArrayList<>(this.size);
+        for (Entry entry : this.values) {
+            if (entry != null) {
+                failed.add(entry);
+            }
+        }
+
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.values, null);
+        Arrays.fill(this.wheel, null);
+        this.size = 0;
+        this.inFlightCount = 0;
+        for (Entry entry : failed) {
+            fail(entry, result);
+        }
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * @return The number of nanoseconds until the next tick is due.
+     */
+    long nanosUntilNextTick(long nowNanos) {
+        return Math.max(0, this.nextTickNanos - nowNanos);
+    }
+
+    int getInFlightCount() {
+        return this.inFlightCount;
+    }
+
+    private static void fail(Entry entry, DiscordResult result) {
+        try {
+            entry.onFailure.accept(result);
+        } catch (RuntimeException exception) {
+            DiscordPlugin.getLogger().error("Failed to run failure callback for Discord IPC request {}", entry.nonce, exception);
+        }
+    }
+
+    private void put(long nonce, Entry entry) {
+        int index = (int) nonce & this.mask;
+        while (this.keys[index] != 0L) {
+            index = (index + 1) & this.mask;
+        }
+
+        this.keys[index] = nonce;
+        this.values[index] = entry;
+        this.size++;
+    }
+
+    private Entry remove(long nonce) {
+        if (nonce <= 0)
+            return null; // Never issued, and 0 marks an empty slot
+
+        int index = (int) nonce & this.mask;
+        while (this.keys[index] != nonce) {
+            if (this.keys[index] == 0L)
+                return null;
+
+            index = (index + 1) & this.mask;
+        }
+
+        Entry entry = this.values[index];
+        this.size--;
+
+        // Shift later entries of the probe run back so lookups never stop at the hole
+        int hole = index;
+        int next = (hole + 1) & this.mask;
+        while (this.keys[next] != 0L) {
+            int home = (int) this.keys[next] & this.mask;
+            if (((next - home) & this.mask) >= ((next - hole) & this.mask)) {
+                this.keys[hole] = this.keys[next];
+                this.values[hole] = this.values[next];
+                hole = next;
+            }
+
+            next = (next + 1) & this.mask;
+        }
+
+        this.keys[hole] = 0L;
+        this.values[hole] = null;
+        return entry;
+    }
+
+    private void link(Entry entry, int slot) {
+        entry.slot = slot;
+        entry.next = this.wheel[slot];
+        if (entry.next != null) {
+            entry.next.previous = entry;
+        }
+
+        this.wheel[slot] = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        } else if (this.wheel[entry.slot] == entry) {
+            this.wheel[entry.slot] = entry.next;
+        }
+
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+
+        entry.previous = null;
+        entry.next = null;
+    }
+
+    private static final class Entry {
+        private final long nonce;
+        private final Consumer<DiscordCommand> onResponse;
+        private final Consumer<DiscordResult> onFailure;
+        private long rounds;
+        private int slot;
+        private Entry previous;
+        private Entry next;
+
+        private Entry(long nonce, Consumer<DiscordCommand> onResponse, Consumer<DiscordResult> onFailure, long rounds) {
+            this.nonce = nonce;
+            this.onResponse = onResponse;
+            this.onFailure = onFailure;
+            this.rounds = rounds;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package dev.railroadide.discordplugin.core;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket matching Discord's presence update limit of roughly five updates every twenty seconds.
+ * <p>
+ * Tokens refill continuously, one every {@code period / capacity}. Acquiring is confined to the
+ * {@link DiscordCore} event loop; the counters may be read from any thread.
+ */
+public final class DiscordRateLimiter {
+    public static final int DEFAULT_CAPACITY = 5;
+    public static final Duration DEFAULT_PERIOD = Duration.ofSeconds(20);
+
+    private final int capacity;
+    private final long nanosPerToken;
+    private final LongAdder deferrals = new LongAdder();
+    private volatile int tokens;
+    private long lastRefillNanos;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param capacity The number of updates allowed in a burst.
+     * @param period   The time it takes to refill the whole bucket.
+     * @throws IllegalArgumentException If the capacity or period is not positive.
+     */
+    public DiscordRateLimiter(int capacity, Duration period) {
+        this(capacity, period, System.nanoTime());
+    }
+
+    /**
+     * Creates a full bucket whose refill starts at the given time.
+     *
+     * @param nowNanos The current {@link System#nanoTime()}.
+     */
+    DiscordRateLimiter(int capacity, Duration period, long nowNanos) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Rate limit capacity must be positive");
+
+        if (period == null || period.isZero() || period.isNegative())
+            throw new IllegalArgumentException("Rate limit period must be positive");
+
+        this.capacity = capacity;
+        this.nanosPerToken = Math.max(1, period.toNanos() / capacity);
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    public DiscordRateLimiter() {
+        this(DEFAULT_CAPACITY, DEFAULT_PERIOD);
+    }
+
+    /**
+     * Takes a token if one is available, counting a deferral otherwise.
+     *
+     * @param nowNanos The current {@link System#nanoTime()}.
+     * @return Whether a token was taken.
+     */
+    boolean tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (this.tokens == 0) {
+            this.deferrals.increment();
+            return false;
+        }
+
+        this.tokens--;
+        return true;
+    }
+
+    /**
+     * @param nowNanos The current {@link System#nanoTime()}.
+     * @return The number of nanoseconds until the next token is available, or 0 if one is available now.
+     */
+    long nanosUntilAvailable(long nowNanos) {
+        refill(nowNanos);
+        if (this.tokens > 0)
+            return 0;
+
+        return Math.max(0, this.lastRefillNanos + this.nanosPerToken - nowNanos);
+    }
+
+    private void refill(long nowNanos) {
+        long gained = (nowNanos - this.lastRefillNanos) / this.nanosPerToken;
+        if (gained <= 0)
+            return;
+
+        if (this.tokens + gained >= this.capacity) {
+            this.tokens = this.capacity;
+            this.lastRefillNanos = nowNanos;
+        } else {
+            this.tokens += (int) gained;
+            this.lastRefillNanos += gained * this.nanosPerToken;
+        }
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @return The number of tokens left as of the last acquire; refills since then are not counted.
+     */
+    public int getAvailableTokens() {
+        return this.tokens;
+    }
+
+    /**
+     * @return The number of times an update was held back because the bucket was empty.
+     */
+    public long getDeferredCount() {
+        return this.deferrals.sum();
+    }
+}
@@ -0,0 +1,108 @@
+package dev.railroadide.discordplugin.core;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import dev.railroadide.discordplugin.data.DiscordUser;
+import dev.railroadide.discordplugin.event.DiscordReadyEvent;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The user and config of the last READY, persisted so the next start can show the user before Discord answers.
+ * <p>
+ * The file carries a version. A file with another version, or one that cannot be read, is ignored and
+ * replaced after the next READY.
+ *
+ * @param user   The user Discord reported.
+ * @param config The config Discord reported, may be {@code null}.
+ */
+public record DiscordReadySnapshot(DiscordUser user, DiscordReadyEvent.Data.Config config) {
+    public static final int VERSION = 1;
+    public static final TypeAdapter<DiscordReadySnapshot> TYPE_ADAPTER = new Adapter().nullSafe();
+
+    /**
+     * Reads a snapshot.
+     *
+     * @param file The snapshot file.
+     * @return The snapshot, or {@code null} if the file is missing, of another version or has no user.
+     * @throws IOException If the file exists but cannot be read or parsed.
+     */
+    public static DiscordReadySnapshot load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            DiscordReadySnapshot snapshot = TYPE_ADAPTER.read(new JsonReader(reader));
+            return snapshot != null && snapshot.user() != null ? snapshot : null;
+        } catch (NoSuchFileException exception) {
+            return null;
+        } catch (JsonParseException | IllegalStateException | NumberFormatException exception) {
+            throw new IOException("Malformed Discord READY snapshot " + file, exception);
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file first and then moves it into place, so a crash never leaves a
+     * partially written snapshot behind.
+     *
+     * @param file The snapshot file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                TYPE_ADAPTER.write(new JsonWriter(writer), this);
+            }
+
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    static final class Adapter extends TypeAdapter<DiscordReadySnapshot> {
+        @Override
+        public void write(JsonWriter out, DiscordReadySnapshot value) throws IOException {
+            out.beginObject();
+            out.name("version").value(VERSION);
+            out.name("user");
+            DiscordUser.TYPE_ADAPTER.write(out, value.user);
+            out.name("config");
+            DiscordReadyEvent.Data.Config.TYPE_ADAPTER.write(out, value.config);
+            out.endObject();
+        }
+
+        @Override
+        public DiscordReadySnapshot read(JsonReader in) throws IOException {
+            int version = -1;
+            DiscordUser user = null;
+            DiscordReadyEvent.Data.Config config = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "version" -> version = in.nextInt();
+                    case "user" -> user = DiscordUser.TYPE_ADAPTER.read(in);
+                    case "config" -> config = DiscordReadyEvent.Data.Config.TYPE_ADAPTER.read(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            in.endObject();
+            return version == VERSION ? new DiscordReadySnapshot(user, config) : null;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package dev.railroadide.discordplugin.core;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Flow.Publisher} of a changing value, such as the current user or the connection state.
+ * <p>
+ * New subscribers receive the latest value as soon as they request one. Every subscriber has its own bounded
+ * buffer: when a subscriber falls behind, the oldest buffered values are dropped, so a slow subscriber never
+ * builds up a backlog and always ends up with the newest value. With a buffer of one, a subscriber only ever
+ * sees the newest value. Signals are delivered on the {@link DiscordCallbackExecutor}, one at a time per
+ * subscriber.
+ *
+ * @param <T> The type of the published values.
+ */
+public final class DiscordStatePublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+    private final DiscordCallbackExecutor executor;
+    private final int bufferCapacity;
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private T latest;
+    private boolean closed;
+
+    /**
+     * @param executor       The executor signals are delivered on.
+     * @param bufferCapacity The number of values buffered per subscriber before the oldest is dropped.
+     */
+    public DiscordStatePublisher(DiscordCallbackExecutor executor, int bufferCapacity) {
+        if (bufferCapacity < 1)
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+
+        this.executor = executor;
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    /**
+     * Creates a subscriber that requests every value and passes it to the given consumer.
+     *
+     * @param consumer The consumer of the values.
+     * @param <T>      The type of the values.
+     * @return The subscriber.
+     */
+    public static <T> Flow.Subscriber<T> subscriber(Consumer<? super T> consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        return new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T item) {
+                consumer.accept(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        };
+    }
+
+    @Override
+    public synchronized void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        var subscription = new Subscription(subscriber);
+        this.executor.execute(subscriber, () -> subscriber.onSubscribe(subscription));
+        if (this.closed) {
+            subscription.complete();
+            return;
+        }
+
+        this.subscriptions.add(subscription);
+        if (this.latest != null) {
+            subscription.offer(this.latest);
+        }
+    }
+
+    /**
+     * Publishes a new value to every subscriber and keeps it for later subscribers.
+     *
+     * @param value The value, which must not be {@code null}.
+     */
+    public synchronized void submit(T value) {
+        Objects.requireNonNull(value, "value");
+        if (this.closed)
+            return;
+
+        this.latest = value;
+        for (Subscription subscription : this.subscriptions) {
+            subscription.offer(value);
+        }
+    }
+
+    /**
+     * @return The latest value, or {@code null} if none was published yet.
+     */
+    public synchronized T getLatest() {
+        return this.latest;
+    }
+
+    /**
+     * Completes every subscriber once it has received its buffered values. Later subscribers complete at once.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.closed)
+            return;
+
+        this.closed = true;
+        for (Subscription subscription : this.subscriptions) {
+            subscription.complete();
+        }
+
+        this.subscriptions.clear();
+    }
+
+    private final class Subscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        // Guarded by this subscription
+        private final ArrayDeque<T> buffer = new ArrayDeque<>();
+        private long demand;
+        private boolean completed;
+        private volatile boolean cancelled;
+
+        private Subscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void offer(T value) {
+            synchronized (this) {
+                if (this.buffer.size() == DiscordStatePublisher.this.bufferCapacity) {
+                    this.buffer.pollFirst();
+                }
+
+                this.buffer.addLast(value);
+            }
+
+            signal();
+        }
+
+        private void complete() {
+            synchronized (this) {
+                this.completed = true;
+            }
+
+            signal();
+        }
+
+        @Override
+        public void request(long count) {
+            if (count <= 0) {
+                cancel();
+                DiscordStatePublisher.this.executor.execute(this.subscriber,
+                        () -> this.subscriber.onError(new IllegalArgumentException("Requested " + count + " values")));
+                return;
+            }
+
+            synchronized (this) {
+                this.demand = this.demand + count < 0 ? Long.MAX_VALUE : this.demand + count;
+            }
+
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            DiscordStatePublisher.this.subscriptions.remove(this);
+        }
+
+        private void signal() {
+            DiscordStatePublisher.this.executor.execute(this.subscriber, this::drain);
+        }
+
+        /**
+         * Delivers as many buffered values as have been requested. Runs on the subscriber's lane, so never
+         * concurrently with itself.
+         */
+        private void drain() {
+            while (!this.cancelled) {
+                T value;
+                synchronized (this) {
+                    if (this.buffer.isEmpty()) {
+                        if (!this.completed)
+                            return;
+
+                        this.cancelled = true;
+                        value = null;
+                    } else if (this.demand == 0) {
+                        return;
+                    } else {
+                        value = this.buffer.pollFirst();
+                        if (this.demand != Long.MAX_VALUE) {
+                            this.demand--;
+                        }
+                    }
+                }
+
+                if (value == null) {
+                    this.subscriber.onComplete();
+                    return;
+                }
+
+                this.subscriber.onNext(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package dev.railroadide.discordplugin.core;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link Writer} that encodes characters as UTF-8 straight into a pooled frame buffer, after room for the header.
+ * The buffer grows by swapping in a larger pooled buffer when needed.
+ */
+final class FrameWriter extends Writer {
+    private final DiscordBufferPool bufferPool;
+    private ByteBuffer buffer;
+
+    FrameWriter(DiscordBufferPool bufferPool, int initialCapacity) {
+        this.bufferPool = bufferPool;
+        this.buffer = bufferPool.acquire(Math.max(initialCapacity, DiscordFrameDecoder.HEADER_LENGTH));
+        this.buffer.position(DiscordFrameDecoder.HEADER_LENGTH);
+    }
+
+    @Override
+    public void write(int c) {
+        ensureRemaining(Utf8.MAX_BYTES_PER_CHAR);
+        Utf8.encode((char) c, this.buffer);
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        ensureRemaining(len * Utf8.MAX_BYTES_PER_CHAR);
+        Utf8.encode(str, off, off + len, this.buffer);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        ensureRemaining(len * Utf8.MAX_BYTES_PER_CHAR);
+        Utf8.encode(cbuf, off, off + len, this.buffer);
+    }
+
+    @Override
+    public Writer append(CharSequence csq) {
+        CharSequence chars = csq == null ? "null" : csq;
+        ensureRemaining(chars.length() * Utf8.MAX_BYTES_PER_CHAR);
+        Utf8.encode(chars, 0, chars.length(), this.buffer);
+        return this;
+    }
+
+    /**
+     * Writes bytes that are already UTF-8 encoded.
+     *
+     * @param bytes The bytes to write.
+     */
+    void writeEncoded(byte[] bytes) {
+        ensureRemaining(bytes.length);
+        this.buffer.put(bytes);
+    }
+
+    /**
+     * Writes the frame header and hands the buffer over to the caller, flipped and ready to be written.
+     *
+     * @param opcode The frame opcode.
+     * @return The encoded frame, to be released to the pool once written.
+     */
+    ByteBuffer finish(int opcode) {
+        ByteBuffer frame = this.buffer;
+        this.buffer = null;
+        frame.putInt(0, opcode);
+        frame.putInt(Integer.BYTES, frame.position() - DiscordFrameDecoder.HEADER_LENGTH);
+        return frame.flip();
+    }
+
+    /**
+     * Returns the buffer to the pool without producing a frame.
+     */
+    void discard() {
+        this.bufferPool.release(this.buffer);
+        this.buffer = null;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (this.buffer.remaining() >= bytes)
+            return;
+
+        ByteBuffer grown = this.bufferPool.acquire(Math.max(this.buffer.limit() * 2, this.buffer.position() + bytes));
+        grown.put(this.buffer.flip());
+        this.bufferPool.release(this.buffer);
+        this.buffer = grown;
+    }
+}
@@ -0,0 +1,83 @@
+package dev.railroadide.discordplugin.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Allocation-free UTF-8 encoding straight into a {@link ByteBuffer}.
+ */
+final class Utf8 {
+    /**
+     * Upper bound for the number of bytes a single UTF-16 char encodes to.
+     */
+    static final int MAX_BYTES_PER_CHAR = 3;
+
+    private Utf8() {
+    }
+
+    /**
+     * Encodes {@code chars[start, end)} at the buffer's position. Unpaired surrogates are written as {@code '?'}.
+     * The buffer must have at least {@code (end - start) * MAX_BYTES_PER_CHAR} bytes remaining.
+     */
+    static void encode(CharSequence chars, int start, int end, ByteBuffer dst) {
+        for (int index = start; index < end; index++) {
+            char c = chars.charAt(index);
+            if (Character.isSurrogate(c)) {
+                char low = index + 1 < end ? chars.charAt(index + 1) : 0;
+                if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+                    encodeSupplementary(Character.toCodePoint(c, low), dst);
+                    index++;
+                } else {
+                    dst.put((byte) '?');
+                }
+            } else {
+                encode(c, dst);
+            }
+        }
+    }
+
+    /**
+     * Encodes {@code chars[start, end)} like {@link #encode(CharSequence, int, int, ByteBuffer)}, reading the array
+     * directly instead of through a {@link CharSequence} view of it.
+     */
+    static void encode(char[] chars, int start, int end, ByteBuffer dst) {
+        for (int index = start; index < end; index++) {
+            char c = chars[index];
+            if (Character.isSurrogate(c)) {
+                char low = index + 1 < end ? chars[index + 1] : 0;
+                if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+                    encodeSupplementary(Character.toCodePoint(c, low), dst);
+                    index++;
+                } else {
+                    dst.put((byte) '?');
+                }
+            } else {
+                encode(c, dst);
+            }
+        }
+    }
+
+    /**
+     * Encodes a single non-surrogate char at the buffer's position. Surrogates are written as {@code '?'}.
+     */
+    static void encode(char c, ByteBuffer dst) {
+        if (c < 0x80) {
+            dst.put((byte) c);
+        } else if (c < 0x800) {
+            dst.put((byte) (0xC0 | (c >> 6)));
+            dst.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isSurrogate(c)) {
+            dst.put((byte) '?');
+        } else {
+            dst.put((byte) (0xE0 | (c >> 12)));
+            dst.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            dst.put((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+
+    private static void encodeSupplementary(int codePoint, ByteBuffer dst) {
+        dst.put((byte) (0xF0 | (codePoint >> 18)));
+        dst.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+        dst.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+        dst.put((byte) (0x80 | (codePoint & 0x3F)));
+    }
+}
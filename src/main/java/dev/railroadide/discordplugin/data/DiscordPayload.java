@@ -0,0 +1,55 @@
+package dev.railroadide.discordplugin.data;
+
+import com.google.gson.JsonElement;
+import dev.railroadide.discordplugin.DiscordPlugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A raw JSON value inside a received frame, kept as a UTF-8 byte slice until something asks for it.
+ * <p>
+ * Nothing is parsed when the frame is routed; {@link #as(Class)} binds the value to a class on demand.
+ */
+public final class DiscordPayload {
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    public DiscordPayload(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Parses the value into the given class.
+     *
+     * @param type The class to bind to.
+     * @param <T>  The type to return.
+     * @return The parsed value.
+     */
+    public <T> T as(Class<T> type) {
+        return DiscordPlugin.GSON.fromJson(reader(), type);
+    }
+
+    /**
+     * Parses the value into a {@link JsonElement} tree.
+     *
+     * @return The parsed tree.
+     */
+    public JsonElement asJsonElement() {
+        return as(JsonElement.class);
+    }
+
+    private Reader reader() {
+        return new InputStreamReader(new ByteArrayInputStream(this.bytes, this.offset, this.length), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return new String(this.bytes, this.offset, this.length, StandardCharsets.UTF_8);
+    }
+}
@@ -1,4 +1,4 @@
 package dev.railroadide.discordplugin.data;
 
-public record DiscordResponse(DiscordConnectionState connectionState, String payload) {
+public record DiscordResponse(DiscordConnectionState connectionState, byte[] payload) {
 }
@@ -50,7 +50,23 @@ public enum DiscordResult {
     UNAUTHORIZED_FOR_ACHIEVEMENT,
     INVALID_GIFT_CODE,
     PURCHASE_ERROR,
-    TRANSACTION_ABORTED;
+    TRANSACTION_ABORTED,
+    /**
+     * Not returned by Discord. The update was replaced by a newer one before it was sent.
+     */
+    SUPERSEDED,
+    /**
+     * Not returned by Discord. No response arrived before the request's deadline.
+     */
+    TIMED_OUT,
+    /**
+     * Not returned by Discord. The connection closed before a response arrived.
+     */
+    DISCONNECTED,
+    /**
+     * Not returned by Discord. The request was dropped because too many requests were waiting.
+     */
+    OVERFLOW;
 
     public static DiscordResult fromCode(int code) {
         return switch (code) {
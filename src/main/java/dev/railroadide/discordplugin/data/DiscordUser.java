@@ -1,9 +1,17 @@
 package dev.railroadide.discordplugin.data;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import lombok.Getter;
 
+import java.io.IOException;
+import java.util.Objects;
+
 public class DiscordUser {
+    public static final TypeAdapter<DiscordUser> TYPE_ADAPTER = new Adapter().nullSafe();
+
     @SerializedName("id")
     private final String userId;
 
@@ -33,14 +41,18 @@ public class DiscordUser {
      * @param premium_type         Type of Nitro subscription
      */
     public DiscordUser(long userId, String username, String discriminator, String avatar, AvatarDecorationData avatarDecorationData, Boolean bot, Integer premium_type) {
-        this.userId = String.valueOf(userId);
+        this(String.valueOf(userId), username, discriminator, avatar, avatarDecorationData, bot, null, premium_type);
+    }
+
+    private DiscordUser(String userId, String username, String discriminator, String avatar, AvatarDecorationData avatarDecorationData, Boolean bot, Integer flags, Integer premium_type) {
+        this.userId = userId;
         this.username = username;
         this.discriminator = discriminator;
         this.avatar = avatar;
         this.avatar_decoration_data = avatarDecorationData;
         this.bot = bot;
+        this.flags = flags;
         this.premium_type = premium_type;
-        this.flags = null;
     }
 
     /**
@@ -73,6 +85,29 @@ public class DiscordUser {
         return premium_type;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+
+        if (!(obj instanceof DiscordUser other))
+            return false;
+
+        return Objects.equals(this.userId, other.userId)
+                && Objects.equals(this.username, other.username)
+                && Objects.equals(this.discriminator, other.discriminator)
+                && Objects.equals(this.avatar, other.avatar)
+                && Objects.equals(this.avatar_decoration_data, other.avatar_decoration_data)
+                && Objects.equals(this.bot, other.bot)
+                && Objects.equals(this.flags, other.flags)
+                && Objects.equals(this.premium_type, other.premium_type);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.userId, this.username, this.discriminator, this.avatar, this.avatar_decoration_data, this.bot, this.flags, this.premium_type);
+    }
+
     @Override
     public String toString() {
         return "DiscordUser{" +
@@ -87,7 +122,56 @@ public class DiscordUser {
                 '}';
     }
 
+    static final class Adapter extends TypeAdapter<DiscordUser> {
+        @Override
+        public void write(JsonWriter out, DiscordUser value) throws IOException {
+            out.beginObject();
+            out.name("id").value(value.userId);
+            out.name("username").value(value.username);
+            out.name("discriminator").value(value.discriminator);
+            out.name("avatar").value(value.avatar);
+            out.name("avatar_decoration_data");
+            AvatarDecorationData.TYPE_ADAPTER.write(out, value.avatar_decoration_data);
+            out.name("bot").value(value.bot);
+            out.name("flags").value(value.flags);
+            out.name("premium_type").value(value.premium_type);
+            out.endObject();
+        }
+
+        @Override
+        public DiscordUser read(JsonReader in) throws IOException {
+            String userId = null;
+            String username = null;
+            String discriminator = null;
+            String avatar = null;
+            AvatarDecorationData avatarDecorationData = null;
+            Boolean bot = null;
+            Integer flags = null;
+            Integer premiumType = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id" -> userId = JsonAdapters.nextString(in);
+                    case "username" -> username = JsonAdapters.nextString(in);
+                    case "discriminator" -> discriminator = JsonAdapters.nextString(in);
+                    case "avatar" -> avatar = JsonAdapters.nextString(in);
+                    case "avatar_decoration_data" -> avatarDecorationData = AvatarDecorationData.TYPE_ADAPTER.read(in);
+                    case "bot" -> bot = JsonAdapters.nextBoolean(in);
+                    case "flags" -> flags = JsonAdapters.nextInteger(in);
+                    case "premium_type" -> premiumType = JsonAdapters.nextInteger(in);
+                    default -> in.skipValue();
+                }
+            }
+
+            in.endObject();
+            return new DiscordUser(userId, username, discriminator, avatar, avatarDecorationData, bot, flags, premiumType);
+        }
+    }
+
     public static class AvatarDecorationData {
+        public static final TypeAdapter<AvatarDecorationData> TYPE_ADAPTER = new Adapter().nullSafe();
+
         @Getter
         private final String asset;
         private final String sku_id;
@@ -101,6 +185,18 @@ public class DiscordUser {
             return sku_id;
         }
 
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof AvatarDecorationData other
+                    && Objects.equals(this.asset, other.asset)
+                    && Objects.equals(this.sku_id, other.sku_id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.asset, this.sku_id);
+        }
+
         @Override
         public String toString() {
             return "AvatarDecorationData{" +
@@ -108,5 +204,32 @@ public class DiscordUser {
                     ", sku_id='" + sku_id + '\'' +
                     '}';
         }
+
+        static final class Adapter extends TypeAdapter<AvatarDecorationData> {
+            @Override
+            public void write(JsonWriter out, AvatarDecorationData value) throws IOException {
+                out.beginObject();
+                out.name("asset").value(value.asset);
+                out.name("sku_id").value(value.sku_id);
+                out.endObject();
+            }
+
+            @Override
+            public AvatarDecorationData read(JsonReader in) throws IOException {
+                String asset = null;
+                String skuId = null;
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "asset" -> asset = JsonAdapters.nextString(in);
+                        case "sku_id" -> skuId = JsonAdapters.nextString(in);
+                        default -> in.skipValue();
+                    }
+                }
+
+                in.endObject();
+                return new AvatarDecorationData(asset, skuId);
+            }
+        }
     }
 }
@@ -0,0 +1,39 @@
+package dev.railroadide.discordplugin.data;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Helpers shared by the hand-written {@link com.google.gson.TypeAdapter}s of the Discord model classes.
+ * Each reads an optional value, consuming a JSON {@code null} and returning {@code null} for it.
+ */
+public final class JsonAdapters {
+    private JsonAdapters() {
+    }
+
+    public static boolean nextNull(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL)
+            return false;
+
+        in.nextNull();
+        return true;
+    }
+
+    public static String nextString(JsonReader in) throws IOException {
+        return nextNull(in) ? null : in.nextString();
+    }
+
+    public static Long nextLong(JsonReader in) throws IOException {
+        return nextNull(in) ? null : in.nextLong();
+    }
+
+    public static Integer nextInteger(JsonReader in) throws IOException {
+        return nextNull(in) ? null : in.nextInt();
+    }
+
+    public static Boolean nextBoolean(JsonReader in) throws IOException {
+        return nextNull(in) ? null : in.nextBoolean();
+    }
+}
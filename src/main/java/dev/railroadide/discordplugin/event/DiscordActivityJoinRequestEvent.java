@@ -0,0 +1,21 @@
+package dev.railroadide.discordplugin.event;
+
+import dev.railroadide.discordplugin.data.DiscordUser;
+import lombok.Getter;
+
+/**
+ * Data of the {@code ACTIVITY_JOIN_REQUEST} event, sent when another user asks to join the user's activity.
+ */
+public class DiscordActivityJoinRequestEvent {
+    @Getter
+    public static class Data {
+        private DiscordUser user;
+
+        @Override
+        public String toString() {
+            return "ActivityJoinRequestData{" +
+                    "user=" + user +
+                    '}';
+        }
+    }
+}
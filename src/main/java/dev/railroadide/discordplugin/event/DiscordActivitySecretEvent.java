@@ -0,0 +1,21 @@
+package dev.railroadide.discordplugin.event;
+
+import lombok.Getter;
+
+/**
+ * Data of the {@code ACTIVITY_JOIN} and {@code ACTIVITY_SPECTATE} events, sent when the user joins or spectates
+ * through another user's activity.
+ */
+public class DiscordActivitySecretEvent {
+    @Getter
+    public static class Data {
+        private String secret;
+
+        @Override
+        public String toString() {
+            return "ActivitySecretData{" +
+                    "secret='" + secret + '\'' +
+                    '}';
+        }
+    }
+}
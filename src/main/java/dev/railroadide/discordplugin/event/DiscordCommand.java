@@ -1,25 +1,49 @@
 package dev.railroadide.discordplugin.event;
 
-import com.google.gson.JsonElement;
 import com.google.gson.annotations.SerializedName;
+import dev.railroadide.discordplugin.data.DiscordPayload;
 import lombok.Getter;
 import lombok.Setter;
 
 @Setter
 @Getter
 public class DiscordCommand {
+    /**
+     * Nonce of a frame that carries none, such as an event dispatch.
+     */
+    public static final long NO_NONCE = 0L;
+    /**
+     * Nonce of a frame whose nonce was not issued by this client, so it can never match a pending request.
+     */
+    public static final long FOREIGN_NONCE = -1L;
+
     private Type cmd;
-    private JsonElement data;
+    private DiscordPayload data;
 
-    private JsonElement args;
+    private DiscordPayload args;
     @SerializedName("evt")
     private Event event;
-    private String nonce;
+    private long nonce = NO_NONCE;
 
     public boolean isError() {
         return this.event == Event.ERROR;
     }
 
+    public boolean hasNonce() {
+        return this.nonce != NO_NONCE;
+    }
+
+    /**
+     * Parses the {@code data} payload into the given class. Nothing is parsed until this is called.
+     *
+     * @param type The class to bind the data to.
+     * @param <T>  The type to return.
+     * @return The parsed data, or {@code null} if the command has none.
+     */
+    public <T> T getData(Class<T> type) {
+        return this.data == null ? null : this.data.as(type);
+    }
+
     @Override
     public String toString() {
         return "DiscordCommand{" +
@@ -27,7 +51,7 @@ public class DiscordCommand {
                 ", data=" + data +
                 ", args=" + args +
                 ", event=" + event +
-                ", nonce='" + nonce + '\'' +
+                ", nonce=" + nonce +
                 '}';
     }
 
@@ -45,7 +69,8 @@ public class DiscordCommand {
         SEND_ACTIVITY_JOIN_INVITE,
         SET_ACTIVITY,
         SET_OVERLAY_LOCKED,
-        SUBSCRIBE
+        SUBSCRIBE,
+        UNSUBSCRIBE
     }
 
     public enum Event {
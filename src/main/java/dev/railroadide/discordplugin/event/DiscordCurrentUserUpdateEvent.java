@@ -0,0 +1,34 @@
+package dev.railroadide.discordplugin.event;
+
+import dev.railroadide.discordplugin.core.DiscordCore;
+import dev.railroadide.discordplugin.data.DiscordUser;
+
+/**
+ * The {@code CURRENT_USER_UPDATE} event, sent when the user changes their name or avatar.
+ */
+public class DiscordCurrentUserUpdateEvent {
+    /**
+     * Keeps {@link DiscordCore#getCurrentUser()} up to date, so the event is always subscribed to.
+     */
+    public static class Handler extends DiscordListenerEventHandler<DiscordUser> {
+        public Handler(DiscordCore core) {
+            super(core, DiscordUser.class);
+        }
+
+        @Override
+        public void handle(DiscordCommand command, DiscordUser user) {
+            this.core.updateCurrentUser(user);
+            super.handle(command, user);
+        }
+
+        @Override
+        public boolean isListening() {
+            return true;
+        }
+
+        @Override
+        public boolean shouldRegister() {
+            return true;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package dev.railroadide.discordplugin.event;
 
+import com.google.gson.JsonParseException;
+import dev.railroadide.discordplugin.DiscordPlugin;
 import dev.railroadide.discordplugin.core.DiscordCore;
 
 public abstract class DiscordEventHandler<Data> {
@@ -11,18 +13,33 @@ public abstract class DiscordEventHandler<Data> {
 
     public abstract void handle(DiscordCommand command, Data data);
 
-    public final void handleObject(DiscordCommand command, Object object) {
-        if (object == null)
-            throw new IllegalArgumentException("Data is null");
-
-        if (!getDataClass().isInstance(object))
-            throw new IllegalArgumentException("Data is not an instance of " + getDataClass().getName());
-
-        handle(command, getDataClass().cast(object));
+    /**
+     * Parses the event data with the handler's data class and handles it. Data that cannot be parsed is logged
+     * and handled as missing, so events that drive the connection, such as READY, are never lost to it.
+     *
+     * @param command The event frame.
+     */
+    public final void dispatch(DiscordCommand command) {
+        Data data;
+        try {
+            data = command.getData(getDataClass());
+        } catch (JsonParseException exception) {
+            DiscordPlugin.getLogger().error("Received malformed {} event data from Discord IPC channel", command.getEvent(), exception);
+            data = null;
+        }
+
+        handle(command, data);
     }
 
     public abstract Class<Data> getDataClass();
 
+    /**
+     * @return Whether anything consumes this event right now. Events nobody consumes are dropped unparsed.
+     */
+    public boolean isListening() {
+        return true;
+    }
+
     public boolean shouldRegister() {
         return true;
     }
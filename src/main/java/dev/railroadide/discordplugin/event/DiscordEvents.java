@@ -1,13 +1,23 @@
 package dev.railroadide.discordplugin.event;
 
+import com.google.gson.JsonElement;
 import dev.railroadide.discordplugin.core.DiscordCore;
+import dev.railroadide.discordplugin.data.DiscordError;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
+/**
+ * Dispatch table with a handler, and so a data class, bound to every {@link DiscordCommand.Event}.
+ * <p>
+ * Lookups go through an {@link EnumMap}, which indexes by ordinal. Events without a dedicated data model are
+ * passed to listeners as a {@link JsonElement}. Discord is only asked to send an event while something listens to
+ * it, and events nothing listens to are dropped before their data is parsed.
+ */
 public class DiscordEvents {
-    private final Map<DiscordCommand.Event, DiscordEventHandler<?>> handlers = new HashMap<>();
+    private final Map<DiscordCommand.Event, DiscordEventHandler<?>> handlers = new EnumMap<>(DiscordCommand.Event.class);
 
     private final DiscordCore core;
 
@@ -18,6 +28,19 @@ public class DiscordEvents {
 
     private void registerEvents() {
         this.handlers.put(DiscordCommand.Event.READY, new DiscordReadyEvent.Handler(core));
+        this.handlers.put(DiscordCommand.Event.CURRENT_USER_UPDATE, new DiscordCurrentUserUpdateEvent.Handler(core));
+        this.handlers.put(DiscordCommand.Event.ACTIVITY_JOIN, new DiscordListenerEventHandler<>(core, DiscordActivitySecretEvent.Data.class));
+        this.handlers.put(DiscordCommand.Event.ACTIVITY_SPECTATE, new DiscordListenerEventHandler<>(core, DiscordActivitySecretEvent.Data.class));
+        this.handlers.put(DiscordCommand.Event.ACTIVITY_JOIN_REQUEST, new DiscordListenerEventHandler<>(core, DiscordActivityJoinRequestEvent.Data.class));
+        this.handlers.put(DiscordCommand.Event.ERROR, new DiscordListenerEventHandler<>(core, DiscordError.class) {
+            @Override
+            public boolean shouldRegister() {
+                return false; // Sent without subscribing
+            }
+        });
+        for (DiscordCommand.Event event : DiscordCommand.Event.values()) {
+            this.handlers.putIfAbsent(event, new DiscordListenerEventHandler<>(core, JsonElement.class));
+        }
     }
 
     public DiscordEventHandler<?> getHandler(DiscordCommand.Event event) {
@@ -27,4 +50,50 @@ public class DiscordEvents {
     public Set<Map.Entry<DiscordCommand.Event, DiscordEventHandler<?>>> getHandlers() {
         return this.handlers.entrySet();
     }
+
+    /**
+     * Adds a listener for an event, subscribing to the event if it is the first one.
+     *
+     * @param event     The event to listen to.
+     * @param dataClass The class the event data is parsed into, which must match the event's handler.
+     * @param listener  The listener, run on the core's callback executor.
+     * @param <T>       The type of the event data.
+     * @throws IllegalArgumentException If the event does not accept listeners or its data class differs.
+     */
+    public <T> void addListener(DiscordCommand.Event event, Class<T> dataClass, Consumer<? super T> listener) {
+        DiscordListenerEventHandler<T> handler = listenerHandler(event, dataClass);
+        boolean wasRegistered = handler.shouldRegister();
+        handler.addListener(listener);
+        if (!wasRegistered && handler.shouldRegister()) {
+            this.core.updateSubscription(event, true);
+        }
+    }
+
+    /**
+     * Removes a listener for an event, unsubscribing from the event if it was the last one.
+     *
+     * @param event    The event the listener was added for.
+     * @param listener The listener to remove.
+     */
+    public void removeListener(DiscordCommand.Event event, Consumer<?> listener) {
+        if (!(getHandler(event) instanceof DiscordListenerEventHandler<?> handler))
+            return;
+
+        boolean wasRegistered = handler.shouldRegister();
+        handler.removeListener(listener);
+        if (wasRegistered && !handler.shouldRegister()) {
+            this.core.updateSubscription(event, false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> DiscordListenerEventHandler<T> listenerHandler(DiscordCommand.Event event, Class<T> dataClass) {
+        if (!(getHandler(event) instanceof DiscordListenerEventHandler<?> handler))
+            throw new IllegalArgumentException("Event " + event + " does not accept listeners");
+
+        if (handler.getDataClass() != dataClass)
+            throw new IllegalArgumentException("Event " + event + " data is " + handler.getDataClass().getName() + ", not " + dataClass.getName());
+
+        return (DiscordListenerEventHandler<T>) handler;
+    }
 }
@@ -0,0 +1,52 @@
+package dev.railroadide.discordplugin.event;
+
+import dev.railroadide.discordplugin.core.DiscordCore;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Handler for events that are only passed on to listeners. Discord is asked to send the event only while the
+ * handler has listeners, and each listener runs on the core's callback executor.
+ *
+ * @param <Data> The type the event data is parsed into.
+ */
+public class DiscordListenerEventHandler<Data> extends DiscordEventHandler<Data> {
+    private final Class<Data> dataClass;
+    private final CopyOnWriteArrayList<Consumer<? super Data>> listeners = new CopyOnWriteArrayList<>();
+
+    public DiscordListenerEventHandler(DiscordCore core, Class<Data> dataClass) {
+        super(core);
+        this.dataClass = dataClass;
+    }
+
+    void addListener(Consumer<? super Data> listener) {
+        this.listeners.addIfAbsent(listener);
+    }
+
+    void removeListener(Consumer<?> listener) {
+        this.listeners.remove(listener);
+    }
+
+    @Override
+    public void handle(DiscordCommand command, Data data) {
+        for (Consumer<? super Data> listener : this.listeners) {
+            this.core.getCallbackExecutor().execute(listener, () -> listener.accept(data));
+        }
+    }
+
+    @Override
+    public Class<Data> getDataClass() {
+        return this.dataClass;
+    }
+
+    @Override
+    public boolean isListening() {
+        return !this.listeners.isEmpty();
+    }
+
+    @Override
+    public boolean shouldRegister() {
+        return isListening();
+    }
+}
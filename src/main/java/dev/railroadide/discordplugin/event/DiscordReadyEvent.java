@@ -1,14 +1,25 @@
 package dev.railroadide.discordplugin.event;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import dev.railroadide.discordplugin.core.DiscordCore;
 import dev.railroadide.discordplugin.data.DiscordUser;
+import dev.railroadide.discordplugin.data.JsonAdapters;
+import lombok.Getter;
 import org.jspecify.annotations.NonNull;
 
+import java.io.IOException;
+
 public class DiscordReadyEvent {
     public static class Data {
+        public static final TypeAdapter<Data> TYPE_ADAPTER = new Adapter().nullSafe();
+
         private int v;
+        @Getter
         private Config config;
+        @Getter
         private DiscordUser user;
 
         @Override
@@ -20,9 +31,11 @@ public class DiscordReadyEvent {
                     '}';
         }
 
-        record Config(@SerializedName("cdn_host") String cdnHost,
-                      @SerializedName("api_endpoint") String apiEndpoint,
-                      String environment) {
+        public record Config(@SerializedName("cdn_host") String cdnHost,
+                             @SerializedName("api_endpoint") String apiEndpoint,
+                             String environment) {
+            public static final TypeAdapter<Config> TYPE_ADAPTER = new ConfigAdapter().nullSafe();
+
             @Override
             public @NonNull String toString() {
                 return "ReadyConfig{" +
@@ -32,6 +45,66 @@ public class DiscordReadyEvent {
                         '}';
             }
         }
+
+        static final class Adapter extends TypeAdapter<Data> {
+            @Override
+            public void write(JsonWriter out, Data value) throws IOException {
+                out.beginObject();
+                out.name("v").value(value.v);
+                out.name("config");
+                Config.TYPE_ADAPTER.write(out, value.config);
+                out.name("user");
+                DiscordUser.TYPE_ADAPTER.write(out, value.user);
+                out.endObject();
+            }
+
+            @Override
+            public Data read(JsonReader in) throws IOException {
+                var value = new Data();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "v" -> value.v = in.nextInt();
+                        case "config" -> value.config = Config.TYPE_ADAPTER.read(in);
+                        case "user" -> value.user = DiscordUser.TYPE_ADAPTER.read(in);
+                        default -> in.skipValue();
+                    }
+                }
+
+                in.endObject();
+                return value;
+            }
+        }
+
+        static final class ConfigAdapter extends TypeAdapter<Config> {
+            @Override
+            public void write(JsonWriter out, Config value) throws IOException {
+                out.beginObject();
+                out.name("cdn_host").value(value.cdnHost());
+                out.name("api_endpoint").value(value.apiEndpoint());
+                out.name("environment").value(value.environment());
+                out.endObject();
+            }
+
+            @Override
+            public Config read(JsonReader in) throws IOException {
+                String cdnHost = null;
+                String apiEndpoint = null;
+                String environment = null;
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "cdn_host" -> cdnHost = JsonAdapters.nextString(in);
+                        case "api_endpoint" -> apiEndpoint = JsonAdapters.nextString(in);
+                        case "environment" -> environment = JsonAdapters.nextString(in);
+                        default -> in.skipValue();
+                    }
+                }
+
+                in.endObject();
+                return new Config(cdnHost, apiEndpoint, environment);
+            }
+        }
     }
 
     public static class Handler extends DiscordEventHandler<Data> {
@@ -42,6 +115,10 @@ public class DiscordReadyEvent {
         @Override
         public void handle(DiscordCommand command, Data data) {
             this.core.onReady();
+            if (data == null)
+                return; // Keep serving the snapshot until a READY carries the user
+
+            this.core.updateReadyConfig(data.config);
             this.core.updateCurrentUser(data.user);
         }
 
@@ -6,19 +6,26 @@ import java.io.IOException;
 import java.net.UnixDomainSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 public final class UnixDiscordIPCChannel implements DiscordIPCChannel {
     private final SocketChannel channel;
 
     public UnixDiscordIPCChannel() throws IOException {
+        this(defaultPath());
+    }
+
+    /**
+     * Connects to the socket at the given path, for example one listed by {@link UnixDiscordSocketDiscovery}.
+     *
+     * @param path The socket path.
+     * @throws IOException If the socket cannot be connected to.
+     */
+    public UnixDiscordIPCChannel(String path) throws IOException {
+        this.channel = SocketChannel.open(UnixDomainSocketAddress.of(path));
+    }
+
+    private static String defaultPath() throws IOException {
         String path = System.getenv("DISCORD_IPC_PATH");
         if (path == null) {
             String instance = System.getProperty("DISCORD_INSTANCE_ID");
@@ -31,51 +38,15 @@ public final class UnixDiscordIPCChannel implements DiscordIPCChannel {
                 }
             }
 
-            String[] sockets = getSockets();
-            if (pid < 0 || pid >= sockets.length) {
+            List<String> sockets = UnixDiscordSocketDiscovery.getInstance().getSockets();
+            if (pid < 0 || pid >= sockets.size()) {
                 throw new IOException("Invalid pid: " + pid);
             }
 
-            path = sockets[pid];
+            path = sockets.get(pid);
         }
 
-        this.channel = SocketChannel.open(UnixDomainSocketAddress.of(path));
-    }
-
-    private static String[] getSockets() {
-        List<String> candidates = new ArrayList<>();
-        candidates.add(System.getenv("XDG_RUNTIME_DIR"));
-        candidates.add(System.getenv("TMPDIR"));
-        candidates.add(System.getProperty("java.io.tmpdir"));
-
-        candidates.removeIf(Objects::isNull);
-        candidates.removeIf(path -> Files.notExists(Paths.get(path)));
-
-        List<String> flatpackCandidates = candidates.stream().map(path -> path + "/app/com.discordapp.Discord").toList();
-        List<String> snapCandidates = candidates.stream().map(path -> path + "/snap.discord").toList();
-        List<String> additionalSnapCandidates = candidates.stream()
-                .flatMap(pathStr -> {
-                    try (Stream<Path> files = Files.list(Path.of(pathStr))) {
-                        return files.filter(path -> path.startsWith("snap.discord_"))
-                                .map(Path::toAbsolutePath)
-                                .map(Path::toString);
-                    } catch (IOException exception) {
-                        return Stream.empty();
-                    }
-                }).toList();
-
-        candidates.addAll(flatpackCandidates);
-        candidates.addAll(snapCandidates);
-        candidates.addAll(additionalSnapCandidates);
-
-        candidates.removeIf(Objects::isNull);
-        candidates.removeIf(path -> Files.notExists(Paths.get(path)));
-
-        return candidates.stream()
-                .flatMap(pathStr -> IntStream.iterate(0, i -> i + 1)
-                        .mapToObj(i -> pathStr + "/discord-ipc-" + i)
-                        .takeWhile(path -> Files.exists(Paths.get(path)))
-                ).toArray(String[]::new);
+        return path;
     }
 
     @Override
@@ -103,6 +74,11 @@ public final class UnixDiscordIPCChannel implements DiscordIPCChannel {
         return this.channel.write(src);
     }
 
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        return this.channel.write(srcs);
+    }
+
     @Override
     public boolean isOpen() {
         return this.channel.isOpen();
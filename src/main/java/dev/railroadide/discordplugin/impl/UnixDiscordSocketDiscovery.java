@@ -0,0 +1,232 @@
+package dev.railroadide.discordplugin.impl;
+
+import dev.railroadide.discordplugin.DiscordPlugin;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Finds the Discord IPC sockets on Unix-like systems.
+ * <p>
+ * The candidate directories ({@code XDG_RUNTIME_DIR}, {@code TMPDIR}, the Java temporary directory and the Flatpak
+ * and Snap directories below them) are scanned once and then watched with a {@link WatchService}, so the socket
+ * list is served from a cache and listeners hear about a new socket as soon as Discord creates it. If the
+ * platform cannot watch a directory, the cache is refreshed on every lookup instead.
+ */
+public final class UnixDiscordSocketDiscovery {
+    private static final String SOCKET_PREFIX = "discord-ipc-";
+    private static final String FLATPAK_DIRECTORY = "app/com.discordapp.Discord";
+    private static final String SNAP_DIRECTORY = "snap.discord";
+
+    private static UnixDiscordSocketDiscovery instance;
+
+    private final List<Path> baseDirectories;
+    private final WatchService watchService;
+    private final CopyOnWriteArrayList<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile List<String> sockets = List.of();
+
+    private UnixDiscordSocketDiscovery() {
+        this.baseDirectories = baseDirectories();
+        this.watchService = createWatchService();
+        rescan();
+
+        if (this.watchService != null) {
+            Thread thread = new Thread(this::watchLoop, "discord-ipc-discovery");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * @return The shared discovery service, scanning the candidate directories on first use.
+     */
+    public static synchronized UnixDiscordSocketDiscovery getInstance() {
+        if (instance == null) {
+            instance = new UnixDiscordSocketDiscovery();
+        }
+
+        return instance;
+    }
+
+    /**
+     * @return The known socket paths, in the order Discord instances should be tried.
+     */
+    public List<String> getSockets() {
+        if (this.watchService == null) {
+            rescan();
+        }
+
+        return this.sockets;
+    }
+
+    /**
+     * Adds a listener that is run on the discovery thread whenever a new Discord socket appears.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(Runnable listener) {
+        this.listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Stops the shared discovery service, if it was started: closes its {@link WatchService}, which ends the
+     * discovery thread, and drops its listeners. The next {@link #getInstance()} scans the directories again.
+     */
+    public static synchronized void shutdown() {
+        if (instance == null)
+            return;
+
+        instance.listeners.clear();
+        if (instance.watchService != null) {
+            try {
+                instance.watchService.close();
+            } catch (IOException exception) {
+                DiscordPlugin.getLogger().warn("Failed to close the Discord IPC socket watcher", exception);
+            }
+        }
+
+        instance = null;
+    }
+
+    private static List<Path> baseDirectories() {
+        List<String> candidates = new ArrayList<>();
+        candidates.add(System.getenv("XDG_RUNTIME_DIR"));
+        candidates.add(System.getenv("TMPDIR"));
+        candidates.add(System.getProperty("java.io.tmpdir"));
+        candidates.removeIf(Objects::isNull);
+
+        Set<Path> directories = new LinkedHashSet<>();
+        for (String candidate : candidates) {
+            directories.add(Path.of(candidate).toAbsolutePath().normalize());
+        }
+
+        return List.copyOf(directories);
+    }
+
+    private static WatchService createWatchService() {
+        try {
+            return FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException exception) {
+            DiscordPlugin.getLogger().warn("Cannot watch for Discord IPC sockets, falling back to scanning", exception);
+            return null;
+        }
+    }
+
+    /**
+     * Lists the directories that may hold sockets, in lookup order, and makes sure each is watched.
+     */
+    private List<Path> socketDirectories() {
+        List<Path> directories = new ArrayList<>();
+        List<Path> snapDirectories = new ArrayList<>();
+        for (Path base : this.baseDirectories) {
+            if (!Files.isDirectory(base))
+                continue;
+
+            directories.add(base);
+            directories.add(base.resolve(FLATPAK_DIRECTORY));
+            directories.add(base.resolve(SNAP_DIRECTORY));
+
+            // The Flatpak directory is two levels down, so watch its parent too in case it does not exist yet
+            watch(base.resolve("app"));
+            try (Stream<Path> files = Files.list(base)) {
+                files.filter(path -> path.getFileName().toString().startsWith(SNAP_DIRECTORY + "_"))
+                        .forEach(snapDirectories::add);
+            } catch (IOException ignored) {
+            }
+        }
+
+        directories.addAll(snapDirectories);
+        directories.removeIf(path -> !Files.isDirectory(path));
+        directories.forEach(this::watch);
+        return directories;
+    }
+
+    private void watch(Path directory) {
+        if (this.watchService == null || !Files.isDirectory(directory))
+            return;
+
+        try {
+            // Registering a directory again returns its existing key
+            directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | ClosedWatchServiceException ignored) {
+        }
+    }
+
+    private synchronized void rescan() {
+        List<String> found = new ArrayList<>();
+        for (Path directory : socketDirectories()) {
+            for (int index = 0; ; index++) {
+                Path socket = directory.resolve(SOCKET_PREFIX + index);
+                if (!Files.exists(socket))
+                    break;
+
+                found.add(socket.toString());
+            }
+        }
+
+        this.sockets = List.copyOf(found);
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = this.watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException exception) {
+                return;
+            }
+
+            boolean relevant = false;
+            boolean socketCreated = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    relevant = true;
+                    socketCreated = true;
+                    continue;
+                }
+
+                String name = event.context().toString();
+                if (name.startsWith(SOCKET_PREFIX)) {
+                    relevant = true;
+                    socketCreated |= event.kind() == StandardWatchEventKinds.ENTRY_CREATE;
+                } else if (name.equals("app") || name.equals("com.discordapp.Discord") || name.startsWith(SNAP_DIRECTORY)) {
+                    // A directory that may later hold a socket, which needs to be watched
+                    relevant = true;
+                }
+            }
+
+            key.reset();
+            if (!relevant)
+                continue;
+
+            rescan();
+            if (socketCreated && !this.sockets.isEmpty()) {
+                for (Runnable listener : this.listeners) {
+                    try {
+                        listener.run();
+                    } catch (RuntimeException exception) {
+                        DiscordPlugin.getLogger().error("Failed to run Discord IPC socket listener", exception);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -6,13 +6,55 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class WindowsDiscordIPCChannel implements DiscordIPCChannel {
+    private static final String PIPE_DIRECTORY = "\\\\.\\pipe\\";
+    private static final String PIPE_PATH_PREFIX = "\\\\?\\pipe\\";
+    private static final String PIPE_PREFIX = "discord-ipc-";
+
     private final RandomAccessFile raf;
     private final FileChannel channel;
     private boolean blocking = true;
 
     public WindowsDiscordIPCChannel() throws IOException {
+        this(defaultPath());
+    }
+
+    /**
+     * Connects to the named pipe at the given path.
+     *
+     * @param path The pipe path, such as {@code \\?\pipe\discord-ipc-1}.
+     * @throws IOException If the pipe cannot be opened.
+     */
+    public WindowsDiscordIPCChannel(String path) throws IOException {
+        this.raf = new RandomAccessFile(path, "rw");
+        this.channel = this.raf.getChannel();
+    }
+
+    /**
+     * @return The paths of the Discord pipes that currently exist, in instance order.
+     */
+    public static List<String> findPipes() {
+        List<String> pipes = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Path.of(PIPE_DIRECTORY), PIPE_PREFIX + "*")) {
+            for (Path pipe : stream) {
+                pipes.add(PIPE_PATH_PREFIX + pipe.getFileName());
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // Listing pipes is not supported everywhere, so only the default pipe is known
+            pipes.add(PIPE_PATH_PREFIX + PIPE_PREFIX + 0);
+        }
+
+        pipes.sort(null);
+        return pipes;
+    }
+
+    private static String defaultPath() throws IOException {
         String path = System.getenv("DISCORD_IPC_PATH");
         if (path == null) {
             String instance = System.getenv("DISCORD_INSTANCE_ID");
@@ -25,11 +67,10 @@ public final class WindowsDiscordIPCChannel implements DiscordIPCChannel {
                 }
             }
 
-            path = "\\\\?\\pipe\\discord-ipc-" + pid;
+            path = PIPE_PATH_PREFIX + PIPE_PREFIX + pid;
         }
 
-        this.raf = new RandomAccessFile(path, "rw");
-        this.channel = this.raf.getChannel();
+        return path;
     }
 
     @Override
@@ -74,8 +115,23 @@ public final class WindowsDiscordIPCChannel implements DiscordIPCChannel {
         return result;
     }
 
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        long result = this.channel.write(srcs);
+        this.channel.force(false);
+        return result;
+    }
+
     @Override
     public boolean isOpen() {
         return this.channel.isOpen();
     }
+
+    /**
+     * Synchronous named pipe handles serialize I/O, so a pending read would hold back every write.
+     */
+    @Override
+    public boolean supportsConcurrentReadWrite() {
+        return false;
+    }
 }
@@ -20,7 +20,8 @@ public final class DiscordPluginSettings {
     private static final long DEFAULT_CLIENT_ID = 853387211897700394L;
     private static final SettingCodec<Map<DisplayMode, DisplayContent>, DisplayLayoutPane> DISPLAY_CONTENT_CODEC =
             SettingCodec.<Map<DisplayMode, DisplayContent>, DisplayLayoutPane>builder("discord:display_content")
-                    .nodeToValue(DisplayLayoutPane::toMap)
+                    // Lambdas rather than method references, so the UI classes are only loaded once the settings page is opened
+                    .nodeToValue(pane -> pane.toMap())
                     .valueToNode((map, pane) -> pane.load(map))
                     .jsonEncoder(map -> {
                         var array = new JsonArray();
@@ -75,6 +76,22 @@ public final class DiscordPluginSettings {
             .defaultValue(true)
             .build());
 
+    public final Setting<Boolean> lazyActivation = (Setting<Boolean>) SettingsHandler.SETTINGS_REGISTRY.register("discord:lazy_activation", Setting.builder(Boolean.class, "discord:lazy_activation")
+            .treePath("plugins.discord")
+            .category(SettingCategory.simple("railroad:plugins.discord"))
+            .description("discord.setting.lazy_activation.description")
+            .codec(DefaultSettingCodecs.BOOLEAN)
+            .defaultValue(false)
+            .build());
+
+    public final Setting<Boolean> multiClient = (Setting<Boolean>) SettingsHandler.SETTINGS_REGISTRY.register("discord:multi_client", Setting.builder(Boolean.class, "discord:multi_client")
+            .treePath("plugins.discord")
+            .category(SettingCategory.simple("railroad:plugins.discord"))
+            .description("discord.setting.multi_client.description")
+            .codec(DefaultSettingCodecs.BOOLEAN)
+            .defaultValue(false)
+            .build());
+
     public final Setting<Integer> hideAfterMinutes = (Setting<Integer>) SettingsHandler.SETTINGS_REGISTRY.register("discord:hide_after_minutes", Setting.builder(Integer.class, "discord:hide_after_minutes")
             .treePath("plugins.discord")
             .category(SettingCategory.simple("railroad:plugins.discord"))
@@ -111,6 +128,8 @@ public final class DiscordPluginSettings {
     public void unregisterSettings() {
         SettingsHandler.SETTINGS_REGISTRY.unregister("discord:client_id");
         SettingsHandler.SETTINGS_REGISTRY.unregister("discord:reconnect_on_activity_update");
+        SettingsHandler.SETTINGS_REGISTRY.unregister("discord:lazy_activation");
+        SettingsHandler.SETTINGS_REGISTRY.unregister("discord:multi_client");
         SettingsHandler.SETTINGS_REGISTRY.unregister("discord:hide_after_minutes");
         SettingsHandler.SETTINGS_REGISTRY.unregister("discord:display_mode");
     }
@@ -14,35 +14,27 @@ import javafx.geometry.Insets;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Consumer;
-import java.util.function.Supplier;
+import java.util.concurrent.Flow;
 
 public class DisplayLayoutPane extends RRHBox {
     private final ObservableMap<DisplayMode, DisplayContent> contentMap = FXCollections.observableHashMap();
 
-    private final Supplier<DiscordUser> userSupplier;
-    private final Consumer<Consumer<DiscordUser>> userListenerRegistrar;
-    private final Consumer<Consumer<DiscordUser>> userListenerRemover;
-    private Consumer<DiscordUser> registeredUserListener;
+    private final Flow.Publisher<DiscordUser> userPublisher;
+    private UserSubscriber userSubscriber;
 
     public DisplayLayoutPane() {
-        this(DiscordPlugin::getCurrentDiscordUser, DiscordPlugin::addCurrentUserListener, DiscordPlugin::removeCurrentUserListener);
+        this(DiscordPlugin.getCurrentUserPublisher());
     }
 
-    public DisplayLayoutPane(Supplier<DiscordUser> userSupplier) {
-        this(userSupplier, listener -> {}, listener -> {});
-    }
-
-    public DisplayLayoutPane(Supplier<DiscordUser> userSupplier,
-                             Consumer<Consumer<DiscordUser>> userListenerRegistrar,
-                             Consumer<Consumer<DiscordUser>> userListenerRemover) {
-        this.userSupplier = userSupplier;
-        this.userListenerRegistrar = userListenerRegistrar;
-        this.userListenerRemover = userListenerRemover;
+    /**
+     * @param userPublisher Publishes the user shown in the preview, replaying the latest one on subscription.
+     */
+    public DisplayLayoutPane(Flow.Publisher<DiscordUser> userPublisher) {
+        this.userPublisher = userPublisher;
         setPadding(new Insets(10));
         sceneProperty().addListener(($, oldScene, newScene) -> {
             if (newScene == null) {
-                unregisterCurrentUserListener();
+                unsubscribeFromCurrentUser();
             }
         });
     }
@@ -59,17 +51,17 @@ public class DisplayLayoutPane extends RRHBox {
     }
 
     private void buildChildren() {
-        unregisterCurrentUserListener();
+        unsubscribeFromCurrentUser();
 
         var editorContainer = new RRVBox(4);
         LocalizedComboBox<DisplayMode> modeSelector = new LocalizedComboBox<>(DisplayMode::getTranslationKey);
         modeSelector.setItems(FXCollections.observableArrayList(DisplayMode.values()));
         modeSelector.getSelectionModel().selectFirst();
         var preview = new DisplayPreviewPane(modeSelector.getSelectionModel().getSelectedItem(), this.contentMap);
-        preview.setCurrentUser(this.userSupplier != null ? this.userSupplier.get() : null);
-
-        this.registeredUserListener = preview::setCurrentUser;
-        this.userListenerRegistrar.accept(this.registeredUserListener);
+        if (this.userPublisher != null) {
+            this.userSubscriber = new UserSubscriber(preview);
+            this.userPublisher.subscribe(this.userSubscriber);
+        }
 
         getChildren().add(preview);
         editorContainer.getChildren().add(modeSelector);
@@ -95,10 +87,58 @@ public class DisplayLayoutPane extends RRHBox {
         getChildren().add(editorContainer);
     }
 
-    private void unregisterCurrentUserListener() {
-        if (this.registeredUserListener != null) {
-            this.userListenerRemover.accept(this.registeredUserListener);
-            this.registeredUserListener = null;
+    private void unsubscribeFromCurrentUser() {
+        if (this.userSubscriber != null) {
+            this.userSubscriber.cancel();
+            this.userSubscriber = null;
+        }
+    }
+
+    /**
+     * Shows the published user in a preview until cancelled. The subscription is handed over asynchronously,
+     * so cancelling may happen before it arrives.
+     */
+    private static final class UserSubscriber implements Flow.Subscriber<DiscordUser> {
+        private final DisplayPreviewPane preview;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean cancelled;
+
+        private UserSubscriber(DisplayPreviewPane preview) {
+            this.preview = preview;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (this.cancelled) {
+                subscription.cancel();
+                return;
+            }
+
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(DiscordUser user) {
+            if (!this.cancelled) {
+                this.preview.setCurrentUser(user);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        private void cancel() {
+            this.cancelled = true;
+            Flow.Subscription subscription = this.subscription;
+            if (subscription != null) {
+                subscription.cancel();
+            }
         }
     }
 }
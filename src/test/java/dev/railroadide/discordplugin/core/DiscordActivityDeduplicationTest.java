@@ -0,0 +1,78 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.activity.discord.DiscordActivity;
+import dev.railroadide.discordplugin.activity.discord.DiscordActivityFingerprint;
+import dev.railroadide.discordplugin.data.DiscordResult;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockDiscordLogger.class)
+class DiscordActivityDeduplicationTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void ignoresTimestampsUnlessExact() {
+        DiscordActivity first = activity("Editing", 1000);
+        DiscordActivity restarted = activity("Editing", 2000);
+
+        long ignoring = DiscordActivityFingerprint.of(first, DiscordActivityFingerprint.Policy.IGNORE_TIMESTAMPS);
+        assertEquals(ignoring, DiscordActivityFingerprint.of(restarted, DiscordActivityFingerprint.Policy.IGNORE_TIMESTAMPS));
+        assertNotEquals(DiscordActivityFingerprint.of(first, DiscordActivityFingerprint.Policy.EXACT),
+                DiscordActivityFingerprint.of(restarted, DiscordActivityFingerprint.Policy.EXACT));
+        assertNotEquals(ignoring, DiscordActivityFingerprint.of(activity("Debugging", 1000),
+                DiscordActivityFingerprint.Policy.IGNORE_TIMESTAMPS));
+    }
+
+    @Test
+    void neverProducesTheReservedFingerprints() {
+        assertEquals(DiscordActivityFingerprint.CLEARED, DiscordActivityFingerprint.of(null, DiscordActivityFingerprint.Policy.EXACT));
+
+        long fingerprint = DiscordActivityFingerprint.of(activity("Editing", 1000), DiscordActivityFingerprint.Policy.EXACT);
+        assertNotEquals(DiscordActivityFingerprint.UNKNOWN, fingerprint);
+        assertNotEquals(DiscordActivityFingerprint.CLEARED, fingerprint);
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS) // The core connects to named pipes there
+    void skipsActivitiesDiscordAlreadyShows() throws Exception {
+        try (var endpoint = new FakeDiscordEndpoint(this.directory.resolve("discord-ipc-0"));
+             var core = endpoint.connectReady(endpoint.newCore())) {
+            var activities = core.getActivityManager();
+
+            CompletableFuture<DiscordResult> first = activities.updateActivityAsync(activity("Editing", 1000));
+            endpoint.answer(endpoint.nextCommand(DiscordCommand.Type.SET_ACTIVITY));
+            assertEquals(DiscordResult.OK, first.get(10, TimeUnit.SECONDS));
+
+            // Only the start time differs, which the default policy ignores
+            assertEquals(DiscordResult.OK, activities.updateActivityAsync(activity("Editing", 2000)).get(10, TimeUnit.SECONDS));
+            assertEquals(1, core.getSkippedActivityUpdateCount());
+
+            // The next frame Discord sees is the changed activity, so the duplicate was never written
+            CompletableFuture<DiscordResult> changed = activities.updateActivityAsync(activity("Debugging", 1000));
+            DiscordCommand request = endpoint.nextCommand(DiscordCommand.Type.SET_ACTIVITY);
+            assertTrue(request.getArgs().toString().contains("Debugging"), request.toString());
+            endpoint.answer(request);
+            assertEquals(DiscordResult.OK, changed.get(10, TimeUnit.SECONDS));
+            assertEquals(1, core.getSkippedActivityUpdateCount());
+        }
+    }
+
+    private static DiscordActivity activity(String details, long start) {
+        return DiscordActivity.builder()
+                .details(details)
+                .startAt(Instant.ofEpochMilli(start))
+                .build();
+    }
+}
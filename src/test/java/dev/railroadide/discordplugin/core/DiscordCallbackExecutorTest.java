@@ -0,0 +1,153 @@
+package dev.railroadide.discordplugin.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockDiscordLogger.class)
+class DiscordCallbackExecutorTest {
+    private final DiscordCallbackExecutor executor = new DiscordCallbackExecutor(Executors.newCachedThreadPool());
+
+    @AfterEach
+    void closeExecutor() {
+        this.executor.close();
+    }
+
+    @Test
+    void slowHandlerDoesNotDelayAnotherFromTheSameCallSite() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var ran = new CountDownLatch(1);
+        Consumer<String> slow = handler();
+        Consumer<String> other = handler();
+        assertSame(slow.getClass(), other.getClass());
+
+        this.executor.execute(slow, () -> await(release));
+        this.executor.execute(other, ran::countDown);
+
+        try {
+            assertTrue(ran.await(5, TimeUnit.SECONDS), "the second handler waited for the first");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void slowInstanceDoesNotDelayAnotherInstanceOfTheSameClass() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var ran = new CountDownLatch(1);
+
+        this.executor.execute(new Object(), () -> await(release));
+        this.executor.execute(new Object(), ran::countDown);
+
+        try {
+            assertTrue(ran.await(5, TimeUnit.SECONDS), "the second handler waited for the first");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void runsCallbacksOfOneHandlerInOrder() throws InterruptedException {
+        Object handler = new Object();
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        var done = new CountDownLatch(1);
+        for (int index = 0; index < 1000; index++) {
+            int value = index;
+            this.executor.execute(handler, () -> order.add(value));
+        }
+
+        this.executor.execute(handler, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int index = 0; index < 1000; index++) {
+            assertEquals(index, order.get(index));
+        }
+    }
+
+    @Test
+    void runsCallbacksOfANamedLaneInOrder() throws InterruptedException {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        var done = new CountDownLatch(1);
+        for (int index = 0; index < 1000; index++) {
+            int value = index;
+            this.executor.executeNamed("lane", () -> order.add(value));
+        }
+
+        this.executor.executeNamed("lane", done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int index = 0; index < 1000; index++) {
+            assertEquals(index, order.get(index));
+        }
+    }
+
+    @Test
+    void reportsLambdasUnderTheirDeclaringClass() throws InterruptedException {
+        var done = new CountDownLatch(2);
+        Consumer<String> first = handler();
+        Consumer<String> second = handler();
+
+        this.executor.execute(first, done::countDown);
+        this.executor.execute(second, done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(2, waitForInvocations(DiscordCallbackExecutorTest.class.getName() + " (lambda)", 2));
+        assertTrue(this.executor.getMetrics().keySet().stream().noneMatch(name -> name.contains("$$Lambda")));
+    }
+
+    @Test
+    void countsFailuresAndKeepsRunning() throws InterruptedException {
+        Object handler = new Object();
+        var done = new CountDownLatch(1);
+
+        this.executor.execute(handler, () -> {
+            throw new IllegalStateException("Handler failed");
+        });
+        this.executor.execute(handler, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, waitForInvocations(Object.class.getName(), 2));
+        assertEquals(1, this.executor.getMetrics().get(Object.class.getName()).failures());
+    }
+
+    private long waitForInvocations(String name, long expected) throws InterruptedException {
+        // Metrics are recorded just after a callback returns
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        long invocations = 0;
+        while (System.nanoTime() < deadline) {
+            var metrics = this.executor.getMetrics().get(name);
+            invocations = metrics == null ? 0 : metrics.invocations();
+            if (invocations >= expected)
+                break;
+
+            Thread.sleep(1);
+        }
+
+        return invocations;
+    }
+
+    /**
+     * @return A new handler object on every call, each an instance of the same lambda class.
+     */
+    private static Consumer<String> handler() {
+        return new ArrayList<String>()::add;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package dev.railroadide.discordplugin.core;
+
+import com.google.gson.JsonSyntaxException;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscordCommandDecoderTest {
+    @Test
+    void decodesRoutingFieldsInAnyOrder() {
+        DiscordCommand command = decode(" { \"data\" : {\"code\":4000} ,\n\t\"nonce\":\"42\", \"evt\":\"ERROR\",\"cmd\":\"SET_ACTIVITY\" } ");
+
+        assertEquals(DiscordCommand.Type.SET_ACTIVITY, command.getCmd());
+        assertEquals(DiscordCommand.Event.ERROR, command.getEvent());
+        assertEquals(42, command.getNonce());
+        assertEquals("{\"code\":4000}", command.getData().toString());
+    }
+
+    @Test
+    void keepsDataAndArgsAsExactSlices() {
+        String data = "{\"name\":\"a \\\"quoted\\\" } ] { [ name\",\"list\":[1,{\"x\":\"}\"}],\"n\":-1.5e3}";
+        DiscordCommand command = decode("{\"cmd\":\"DISPATCH\",\"data\":" + data + ",\"args\":[\"]\"],\"evt\":\"READY\"}");
+
+        assertEquals(data, command.getData().toString());
+        assertEquals("[\"]\"]", command.getArgs().toString());
+        assertEquals(DiscordCommand.Event.READY, command.getEvent());
+    }
+
+    @Test
+    void keepsScalarData() {
+        assertEquals("true", decode("{\"data\":true}").getData().toString());
+        assertEquals("12", decode("{\"data\":12 }").getData().toString());
+        assertEquals("\"text\"", decode("{\"data\":\"text\"}").getData().toString());
+    }
+
+    @Test
+    void treatsNullDataAsMissing() {
+        DiscordCommand command = decode("{\"cmd\":\"DISPATCH\",\"data\":null,\"args\":null}");
+
+        assertNull(command.getData());
+        assertNull(command.getArgs());
+    }
+
+    @Test
+    void keepsMultiByteCharactersIntact() {
+        String data = "{\"username\":\"Zoë 🚂\"}";
+        assertEquals(data, decode("{\"data\":" + data + "}").getData().toString());
+    }
+
+    @Test
+    void decodesMissingNonceAsNoNonce() {
+        DiscordCommand command = decode("{\"cmd\":\"DISPATCH\",\"evt\":\"READY\"}");
+
+        assertEquals(DiscordCommand.NO_NONCE, command.getNonce());
+        assertFalse(command.hasNonce());
+    }
+
+    @Test
+    void decodesNullNonceAsNoNonce() {
+        assertEquals(DiscordCommand.NO_NONCE, decode("{\"nonce\":null}").getNonce());
+    }
+
+    @Test
+    void decodesNoncesNotIssuedByThisClientAsForeign() {
+        assertEquals(DiscordCommand.FOREIGN_NONCE, decode("{\"nonce\":\"\"}").getNonce());
+        assertEquals(DiscordCommand.FOREIGN_NONCE, decode("{\"nonce\":\"0\"}").getNonce());
+        assertEquals(DiscordCommand.FOREIGN_NONCE, decode("{\"nonce\":\"-1\"}").getNonce());
+        assertEquals(DiscordCommand.FOREIGN_NONCE, decode("{\"nonce\":\"1a\"}").getNonce());
+        assertEquals(DiscordCommand.FOREIGN_NONCE, decode("{\"nonce\":\"8e5f2a1c-uuid\"}").getNonce());
+        assertEquals(DiscordCommand.FOREIGN_NONCE, decode("{\"nonce\":\"1234567890123456789\"}").getNonce());
+        assertTrue(decode("{\"nonce\":\"1\"}").hasNonce());
+    }
+
+    @Test
+    void decodesLargestNonce() {
+        assertEquals(999_999_999_999_999_999L, decode("{\"nonce\":\"999999999999999999\"}").getNonce());
+    }
+
+    @Test
+    void decodesUnknownTypesAndEventsAsNull() {
+        DiscordCommand command = decode("{\"cmd\":\"NOT_A_COMMAND\",\"evt\":\"READ\",\"extra\":{\"cmd\":\"DISPATCH\"}}");
+
+        assertNull(command.getCmd());
+        assertNull(command.getEvent());
+    }
+
+    @Test
+    void decodesEmptyObject() {
+        DiscordCommand command = decode(" {} ");
+
+        assertNull(command.getCmd());
+        assertNull(command.getData());
+        assertEquals(DiscordCommand.NO_NONCE, command.getNonce());
+    }
+
+    @Test
+    void rejectsMalformedPayloads() {
+        assertThrows(JsonSyntaxException.class, () -> decode(""));
+        assertThrows(JsonSyntaxException.class, () -> decode("[]"));
+        assertThrows(JsonSyntaxException.class, () -> decode("{"));
+        assertThrows(JsonSyntaxException.class, () -> decode("{\"cmd\""));
+        assertThrows(JsonSyntaxException.class, () -> decode("{\"cmd\":"));
+        assertThrows(JsonSyntaxException.class, () -> decode("{\"cmd\":\"DISPATCH"));
+        assertThrows(JsonSyntaxException.class, () -> decode("{\"data\":{\"a\":1}"));
+        assertThrows(JsonSyntaxException.class, () -> decode("{\"cmd\":\"DISPATCH\" \"evt\":\"READY\"}"));
+    }
+
+    private static DiscordCommand decode(String payload) {
+        return DiscordCommandDecoder.decode(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.DiscordPlugin;
+import dev.railroadide.discordplugin.activity.discord.DiscordActivity;
+import dev.railroadide.discordplugin.activity.discord.DiscordSetActivity;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that copying the cached JSON of SET_ACTIVITY arguments produces the same frames as streaming the arguments
+ * through {@link DiscordPlugin#WIRE_GSON}.
+ */
+class DiscordCommandEncoderTest {
+    private static final int OPCODE = 1;
+    private static final long PID = 4242;
+
+    private final DiscordBufferPool pool = new DiscordBufferPool();
+    private final DiscordCommandEncoder encoder = new DiscordCommandEncoder(this.pool, DiscordPlugin.WIRE_GSON);
+
+    @Test
+    void copiesTheSameFrameGsonWritesForABuiltActivity() throws IOException {
+        DiscordActivity activity = DiscordActivity.builder()
+                .playing()
+                .state("Railroad 2.0.0")
+                .details("Editing \"Zoë 🚂\".java")
+                .startAt(Instant.ofEpochMilli(1700000000000L))
+                .largeImage("logo")
+                .build();
+
+        assertSameFrames(command(42), new DiscordSetActivity.Args(PID, activity));
+    }
+
+    @Test
+    void leavesOutANullActivity() throws IOException {
+        var args = new DiscordSetActivity.Args(PID, null);
+
+        byte[] frame = assertSameFrames(command(42), args);
+        assertEquals("{\"cmd\":\"SET_ACTIVITY\",\"args\":{\"pid\":" + PID + "},\"nonce\":\"42\"}", payload(frame));
+    }
+
+    @Test
+    void leavesOutAMissingNonce() throws IOException {
+        byte[] frame = assertSameFrames(command(DiscordCommand.NO_NONCE), new DiscordSetActivity.Args(PID, null));
+        assertEquals("{\"cmd\":\"SET_ACTIVITY\",\"args\":{\"pid\":" + PID + "}}", payload(frame));
+    }
+
+    private byte[] assertSameFrames(DiscordCommand command, DiscordSetActivity.Args args) throws IOException {
+        byte[] streamed = toBytes(this.encoder.encodeStreamed(command, args, OPCODE));
+        byte[] copied = toBytes(this.encoder.encode(command, args, OPCODE));
+
+        assertEquals(payload(streamed), payload(copied));
+        assertArrayEquals(streamed, copied);
+        return copied;
+    }
+
+    private byte[] toBytes(ByteBuffer frame) {
+        var bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        this.pool.release(frame);
+        return bytes;
+    }
+
+    private static String payload(byte[] frame) {
+        return new String(frame, DiscordFrameDecoder.HEADER_LENGTH, frame.length - DiscordFrameDecoder.HEADER_LENGTH,
+                StandardCharsets.UTF_8);
+    }
+
+    private static DiscordCommand command(long nonce) {
+        var command = new DiscordCommand();
+        command.setCmd(DiscordCommand.Type.SET_ACTIVITY);
+        command.setNonce(nonce);
+        return command;
+    }
+}
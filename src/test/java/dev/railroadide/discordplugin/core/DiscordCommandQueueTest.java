@@ -0,0 +1,115 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.data.DiscordResult;
+import dev.railroadide.discordplugin.event.DiscordActivitySecretEvent;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the queue that holds commands while the handshake is pending, using a {@link FakeDiscordEndpoint} that
+ * only accepts the connection once the queue has been filled.
+ */
+@DisabledOnOs(OS.WINDOWS) // The core connects to named pipes there
+@ExtendWith(MockDiscordLogger.class)
+class DiscordCommandQueueTest {
+    private static final int QUEUE_CAPACITY = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compactsBoundsAndFlushesQueuedCommandsOnReady() throws Exception {
+        try (var endpoint = new FakeDiscordEndpoint(this.directory.resolve("discord-ipc-0"));
+             var core = endpoint.newCore()) {
+            // A newer SET_ACTIVITY replaces the queued one
+            CompletableFuture<DiscordCommand> replacedActivity = core.sendCommandAsync(DiscordCommand.Type.SET_ACTIVITY, Map.of("pid", 1));
+            CompletableFuture<DiscordCommand> activity = core.sendCommandAsync(DiscordCommand.Type.SET_ACTIVITY, Map.of("pid", 2));
+            assertFailsWith(DiscordResult.SUPERSEDED, replacedActivity);
+
+            // Every other command keeps its place, including subscription changes
+            CompletableFuture<DiscordCommand> subscribe = core.sendCommandAsync(DiscordCommand.Type.SUBSCRIBE, Map.of("id", "1"));
+            CompletableFuture<DiscordCommand> unsubscribe = core.sendCommandAsync(DiscordCommand.Type.UNSUBSCRIBE, Map.of("id", "2"));
+
+            List<CompletableFuture<DiscordCommand>> users = new ArrayList<>();
+            for (int index = 3; index < QUEUE_CAPACITY; index++) {
+                users.add(core.sendCommandAsync(DiscordCommand.Type.GET_USER, Map.of("id", Integer.toString(index))));
+            }
+
+            assertFailsWith(DiscordResult.OVERFLOW, core.sendCommandAsync(DiscordCommand.Type.GET_USER, Map.of("id", "overflow")));
+            assertFalse(activity.isDone());
+            assertFalse(subscribe.isDone());
+            assertFalse(unsubscribe.isDone());
+            assertTrue(users.stream().noneMatch(CompletableFuture::isDone));
+
+            endpoint.connectReady(core);
+
+            // Every queued command follows READY in queue order, with only the latest of each replaced kind
+            List<DiscordCommand> sent = new ArrayList<>();
+            while (sent.size() < QUEUE_CAPACITY) {
+                DiscordCommand command = endpoint.readCommand();
+                if (command.getEvent() == null) { // Skips the subscriptions of the core's own event handlers
+                    sent.add(command);
+                }
+            }
+
+            assertEquals(DiscordCommand.Type.SET_ACTIVITY, sent.get(0).getCmd());
+            assertEquals("{\"pid\":2}", sent.get(0).getArgs().toString());
+            assertEquals(DiscordCommand.Type.SUBSCRIBE, sent.get(1).getCmd());
+            assertEquals("{\"id\":\"1\"}", sent.get(1).getArgs().toString());
+            assertEquals(DiscordCommand.Type.UNSUBSCRIBE, sent.get(2).getCmd());
+            assertEquals("{\"id\":\"2\"}", sent.get(2).getArgs().toString());
+            for (int index = 3; index < QUEUE_CAPACITY; index++) {
+                assertEquals(DiscordCommand.Type.GET_USER, sent.get(index).getCmd());
+                assertEquals("{\"id\":\"" + index + "\"}", sent.get(index).getArgs().toString());
+            }
+        }
+    }
+
+    @Test
+    void subscribesOnReadyToEventsWithListenersOnly() throws Exception {
+        try (var endpoint = new FakeDiscordEndpoint(this.directory.resolve("discord-ipc-0"));
+             var core = endpoint.newCore()) {
+            Consumer<DiscordActivitySecretEvent.Data> listener = data -> {
+            };
+            core.addEventListener(DiscordCommand.Event.ACTIVITY_JOIN, DiscordActivitySecretEvent.Data.class, listener);
+            core.addEventListener(DiscordCommand.Event.ACTIVITY_SPECTATE, DiscordActivitySecretEvent.Data.class, listener);
+            core.removeEventListener(DiscordCommand.Event.ACTIVITY_SPECTATE, listener);
+            // Queued behind the subscriptions, so it marks the end of them
+            core.sendCommandAsync(DiscordCommand.Type.GET_USER, Map.of("id", "1"));
+
+            endpoint.connectReady(core);
+
+            List<DiscordCommand.Event> subscribed = new ArrayList<>();
+            for (DiscordCommand command = endpoint.readCommand(); command.getCmd() != DiscordCommand.Type.GET_USER;
+                 command = endpoint.readCommand()) {
+                assertEquals(DiscordCommand.Type.SUBSCRIBE, command.getCmd());
+                subscribed.add(command.getEvent());
+            }
+
+            assertEquals(1, Collections.frequency(subscribed, DiscordCommand.Event.ACTIVITY_JOIN));
+            assertFalse(subscribed.contains(DiscordCommand.Event.ACTIVITY_SPECTATE));
+        }
+    }
+
+    private static void assertFailsWith(DiscordResult result, CompletableFuture<DiscordCommand> future) {
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        DiscordException cause = assertInstanceOf(DiscordException.class, exception.getCause());
+        assertEquals(result, cause.getResult());
+    }
+}
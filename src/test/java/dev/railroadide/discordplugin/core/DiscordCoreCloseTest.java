@@ -0,0 +1,65 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.activity.discord.DiscordActivityFingerprint;
+import dev.railroadide.discordplugin.data.DiscordResult;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that closing a {@link DiscordCore} answers everything it still holds. The cores never connect, since
+ * reconnecting is turned off and nothing listens on their path.
+ */
+@ExtendWith(MockDiscordLogger.class)
+class DiscordCoreCloseTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void failsTheParkedActivityOnClose() throws Exception {
+        CompletableFuture<DiscordResult> future;
+        try (var core = newCore()) {
+            future = core.sendActivityUpdateAsync(null, DiscordActivityFingerprint.UNKNOWN);
+        }
+
+        assertEquals(DiscordResult.DISCONNECTED, future.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failsActivityUpdatesSentAfterClose() throws Exception {
+        var core = newCore();
+        core.close();
+
+        var result = new CompletableFuture<DiscordResult>();
+        core.sendActivityUpdate(null, DiscordActivityFingerprint.UNKNOWN, result::complete);
+
+        assertEquals(DiscordResult.DISCONNECTED, core.sendActivityUpdateAsync(null, DiscordActivityFingerprint.UNKNOWN)
+                .get(10, TimeUnit.SECONDS));
+        assertEquals(DiscordResult.DISCONNECTED, result.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failsCommandsSentAfterClose() {
+        var core = newCore();
+        core.close();
+
+        CompletableFuture<DiscordCommand> future = core.sendCommandAsync(DiscordCommand.Type.GET_USER, Map.of("id", "1"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        DiscordException cause = assertInstanceOf(DiscordException.class, exception.getCause());
+        assertEquals(DiscordResult.DISCONNECTED, cause.getResult());
+    }
+
+    private DiscordCore newCore() {
+        return new DiscordCore("0", () -> false, this.directory.resolve("discord-ipc-0").toString());
+    }
+}
@@ -0,0 +1,80 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.data.DiscordResult;
+import dev.railroadide.discordplugin.data.DiscordUser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockDiscordLogger.class)
+class DiscordCoreGroupTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void completesPublishesWhenTheirClientGoesAway() throws Exception {
+        // Nothing listens on the path, so the core keeps backing off with the activity parked
+        List<String> paths = new CopyOnWriteArrayList<>(List.of(this.directory.resolve("discord-ipc-0").toString()));
+        var backoff = new CompletableFuture<Void>();
+        try (var group = new DiscordCoreGroup(path -> {
+            var core = new DiscordCore("0", () -> true, path);
+            core.getConnectionStatePublisher().subscribe(DiscordStatePublisher.subscriber(state -> {
+                if (state == DiscordConnectionSupervisor.State.BACKOFF) {
+                    backoff.complete(null);
+                }
+            }));
+            return core;
+        }, true, () -> List.copyOf(paths))) {
+            group.refresh();
+            backoff.get(10, TimeUnit.SECONDS);
+
+            CompletableFuture<DiscordResult> result = group.updateActivityAsync(null);
+
+            paths.clear();
+            group.refresh();
+
+            assertEquals(DiscordResult.DISCONNECTED, result.get(10, TimeUnit.SECONDS));
+            assertTrue(group.getCores().isEmpty());
+        }
+    }
+
+    @Test
+    void relaysOnlyTheUserOfTheFirstClientThatReportsOne() throws Exception {
+        List<String> paths = List.of(this.directory.resolve("discord-ipc-0").toString(),
+                this.directory.resolve("discord-ipc-1").toString());
+        try (var group = new DiscordCoreGroup(path -> new DiscordCore("0", () -> false, path), true, () -> paths)) {
+            BlockingQueue<DiscordUser> relayed = new LinkedBlockingQueue<>();
+            group.setCurrentUserListener(relayed::add);
+            group.refresh();
+            DiscordCore first = group.getCores().get(0);
+            DiscordCore second = group.getCores().get(1);
+
+            // The first client has no user yet, so the second one's is current
+            DiscordUser secondUser = user(2);
+            second.updateCurrentUser(secondUser);
+            assertEquals(secondUser, relayed.poll(10, TimeUnit.SECONDS));
+
+            DiscordUser firstUser = user(1);
+            first.updateCurrentUser(firstUser);
+            assertEquals(firstUser, relayed.poll(10, TimeUnit.SECONDS));
+
+            second.updateCurrentUser(user(3));
+            assertNull(relayed.poll(200, TimeUnit.MILLISECONDS));
+            assertEquals(firstUser, group.getCurrentUser());
+        }
+    }
+
+    private static DiscordUser user(long id) {
+        return new DiscordUser(id, "user" + id, "0", null, null, false, 0);
+    }
+}
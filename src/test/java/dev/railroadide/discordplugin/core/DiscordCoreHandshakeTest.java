@@ -0,0 +1,61 @@
+package dev.railroadide.discordplugin.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisabledOnOs(OS.WINDOWS) // The core connects to named pipes there
+@ExtendWith(MockDiscordLogger.class)
+class DiscordCoreHandshakeTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void becomesReadyOnReadyWithoutData() throws Exception {
+        assertBecomesReady("{\"cmd\":\"DISPATCH\",\"evt\":\"READY\"}");
+    }
+
+    @Test
+    void becomesReadyOnReadyWithNullData() throws Exception {
+        assertBecomesReady("{\"cmd\":\"DISPATCH\",\"evt\":\"READY\",\"data\":null}");
+    }
+
+    @Test
+    void becomesReadyOnReadyWithMalformedData() throws Exception {
+        assertBecomesReady("{\"cmd\":\"DISPATCH\",\"evt\":\"READY\",\"data\":{\"v\":1,\"user\":[\"not\",\"a\",\"user\"]}}");
+    }
+
+    @Test
+    void takesTheUserFromReady() throws Exception {
+        var user = new CompletableFuture<String>();
+        assertBecomesReady("{\"cmd\":\"DISPATCH\",\"evt\":\"READY\",\"data\":{\"v\":1," +
+                "\"user\":{\"id\":\"1\",\"username\":\"railroad\"}}}", core -> core.getCurrentUserPublisher()
+                .subscribe(DiscordStatePublisher.subscriber(value -> user.complete(value.getUsername()))));
+
+        assertEquals("railroad", user.get(10, TimeUnit.SECONDS));
+    }
+
+    private void assertBecomesReady(String ready) throws Exception {
+        assertBecomesReady(ready, core -> {
+        });
+    }
+
+    private void assertBecomesReady(String ready, Consumer<DiscordCore> setUp) throws Exception {
+        try (var endpoint = new FakeDiscordEndpoint(this.directory.resolve("discord-ipc-0"));
+             var core = endpoint.newCore()) {
+            setUp.accept(core);
+
+            endpoint.connectReady(core, ready);
+            assertEquals(DiscordConnectionSupervisor.State.READY, core.getConnectionState());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.data.DiscordResult;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a real {@link DiscordCore} against a {@link FakeDiscordEndpoint} on a Unix domain socket.
+ */
+@DisabledOnOs(OS.WINDOWS) // The core connects to named pipes there
+@ExtendWith(MockDiscordLogger.class)
+class DiscordCorePipeliningTest {
+    private static final int REQUESTS = 512;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void pipelinesRequestsWithoutWaitingForResponses() throws Exception {
+        try (var endpoint = new FakeDiscordEndpoint(this.directory.resolve("discord-ipc-0"));
+             var core = endpoint.connectReady(endpoint.newCore())) {
+            List<CompletableFuture<DiscordCommand>> futures = new ArrayList<>(REQUESTS);
+            for (int index = 0; index < REQUESTS; index++) {
+                futures.add(core.sendCommandAsync(DiscordCommand.Type.GET_USER, Map.of("id", Integer.toString(index))));
+            }
+
+            // Every request reaches Discord before it answers any, which only works if nothing waits for a response
+            List<DiscordCommand> requests = new ArrayList<>(REQUESTS);
+            Set<Long> nonces = new HashSet<>();
+            for (int index = 0; index < REQUESTS; index++) {
+                DiscordCommand request = endpoint.nextCommand(DiscordCommand.Type.GET_USER);
+                requests.add(request);
+                nonces.add(request.getNonce());
+            }
+
+            assertEquals(REQUESTS, nonces.size());
+
+            // Answer in reverse order, so responses can only be matched by nonce
+            for (int index = REQUESTS - 1; index >= 0; index--) {
+                endpoint.answer(requests.get(index), "{\"id\":\"" + index + "\"}");
+            }
+
+            for (int index = 0; index < REQUESTS; index++) {
+                DiscordCommand response = futures.get(index).get(10, TimeUnit.SECONDS);
+                assertEquals(requests.get(index).getNonce(), response.getNonce());
+                assertEquals("{\"id\":\"" + index + "\"}", response.getData().toString());
+            }
+
+            assertEquals(0, core.getInFlightCount());
+        }
+    }
+
+    @Test
+    void failsRequestsThatCannotBeEncoded() throws Exception {
+        try (var endpoint = new FakeDiscordEndpoint(this.directory.resolve("discord-ipc-0"));
+             var core = endpoint.connectReady(endpoint.newCore())) {
+            DiscordEncodedArgs broken = () -> {
+                throw new IllegalStateException("Broken arguments");
+            };
+
+            CompletableFuture<DiscordCommand> future = core.sendCommandAsync(DiscordCommand.Type.GET_USER, broken);
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            DiscordException cause = assertInstanceOf(DiscordException.class, exception.getCause());
+            assertEquals(DiscordResult.INTERNAL_ERROR, cause.getResult());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.data.DiscordConnectionState;
+import dev.railroadide.discordplugin.data.DiscordResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscordFrameDecoderTest {
+    private static final String READY = "{\"cmd\":\"DISPATCH\",\"evt\":\"READY\",\"data\":{\"v\":1}}";
+    private static final String RESPONSE = "{\"cmd\":\"SET_ACTIVITY\",\"nonce\":\"1\",\"data\":{}}";
+
+    @Test
+    void decodesFramesSplitAtEveryChunkSize() throws IOException {
+        var stream = new ByteArrayOutputStream();
+        stream.writeBytes(InMemoryDiscordIPCChannel.frame(1, READY));
+        stream.writeBytes(InMemoryDiscordIPCChannel.frame(1, ""));
+        stream.writeBytes(InMemoryDiscordIPCChannel.frame(1, RESPONSE));
+        byte[] bytes = stream.toByteArray();
+
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+            var channel = new InMemoryDiscordIPCChannel().feed(bytes, chunkSize);
+            List<String> payloads = readAll(new DiscordFrameDecoder(new DiscordBufferPool(), 1024), channel);
+
+            assertEquals(List.of(READY, "", RESPONSE), payloads, "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    void keepsSplitHeaderBetweenReads() throws IOException {
+        byte[] frame = InMemoryDiscordIPCChannel.frame(1, READY);
+        var channel = new InMemoryDiscordIPCChannel();
+        var decoder = new DiscordFrameDecoder(new DiscordBufferPool(), 1024);
+
+        for (int split = 1; split < DiscordFrameDecoder.HEADER_LENGTH; split++) {
+            channel.feed(slice(frame, 0, split));
+            assertNull(decoder.read(channel), "header split at " + split);
+
+            channel.feed(slice(frame, split, frame.length));
+            assertEquals(READY, payload(decoder.read(channel)));
+        }
+    }
+
+    @Test
+    void keepsSplitPayloadBetweenReads() throws IOException {
+        byte[] frame = InMemoryDiscordIPCChannel.frame(1, READY);
+        var channel = new InMemoryDiscordIPCChannel();
+        var decoder = new DiscordFrameDecoder(new DiscordBufferPool(), 1024);
+
+        for (int split = DiscordFrameDecoder.HEADER_LENGTH; split < frame.length; split++) {
+            channel.feed(slice(frame, 0, split));
+            assertNull(decoder.read(channel), "payload split at " + split);
+            assertNull(decoder.read(channel), "no data after split at " + split);
+
+            channel.feed(slice(frame, split, frame.length));
+            assertEquals(READY, payload(decoder.read(channel)));
+        }
+    }
+
+    @Test
+    void decodesPayloadsLargerThanThePooledBuffers() throws IOException {
+        String large = "\"" + "x".repeat(100_000) + "\"";
+        var channel = new InMemoryDiscordIPCChannel().feed(InMemoryDiscordIPCChannel.frame(1, large), 4093);
+
+        assertEquals(List.of(large), readAll(new DiscordFrameDecoder(new DiscordBufferPool(), 1024 * 1024), channel));
+    }
+
+    @Test
+    void mapsOpcodes() throws IOException {
+        var channel = new InMemoryDiscordIPCChannel()
+                .feed(InMemoryDiscordIPCChannel.frame(0, "{}"))
+                .feed(InMemoryDiscordIPCChannel.frame(2, "{}"))
+                .feed(InMemoryDiscordIPCChannel.frame(42, "{}"));
+        var decoder = new DiscordFrameDecoder(new DiscordBufferPool(), 1024);
+
+        assertEquals(DiscordConnectionState.HANDSHAKE, decoder.read(channel).connectionState());
+        assertEquals(DiscordConnectionState.ERROR, decoder.read(channel).connectionState());
+        assertEquals(DiscordConnectionState.ERROR, decoder.read(channel).connectionState());
+    }
+
+    @Test
+    void rejectsLengthAboveMaximumBeforeAllocating() {
+        var pool = new DiscordBufferPool();
+        var channel = new InMemoryDiscordIPCChannel().feed(header(1, 1025), 3);
+        var decoder = new DiscordFrameDecoder(pool, 1024);
+
+        IOException exception = assertThrows(IOException.class, () -> decoder.read(channel));
+        assertFalse(exception instanceof EOFException);
+        assertEquals(0, pool.getHitCount() + pool.getMissCount());
+    }
+
+    @Test
+    void acceptsLengthAtMaximum() throws IOException {
+        String payload = "x".repeat(1024);
+        var channel = new InMemoryDiscordIPCChannel().feed(InMemoryDiscordIPCChannel.frame(1, payload));
+
+        assertEquals(List.of(payload), readAll(new DiscordFrameDecoder(new DiscordBufferPool(), 1024), channel));
+    }
+
+    @Test
+    void rejectsNegativeLength() {
+        var channel = new InMemoryDiscordIPCChannel().feed(header(1, -1));
+        var decoder = new DiscordFrameDecoder(new DiscordBufferPool(), Integer.MAX_VALUE);
+
+        IOException exception = assertThrows(IOException.class, () -> decoder.read(channel));
+        assertTrue(exception.getMessage().contains(Integer.toUnsignedString(-1)));
+    }
+
+    @Test
+    void reportsEndOfStreamInsideFrame() {
+        byte[] frame = InMemoryDiscordIPCChannel.frame(1, READY);
+        var channel = new InMemoryDiscordIPCChannel().feed(slice(frame, 0, 12)).endOfStream();
+        var decoder = new DiscordFrameDecoder(new DiscordBufferPool(), 1024);
+
+        assertThrows(EOFException.class, () -> decoder.read(channel));
+    }
+
+    @Test
+    void reusesPooledPayloadBuffers() throws IOException {
+        var pool = new DiscordBufferPool();
+        var channel = new InMemoryDiscordIPCChannel();
+        for (int index = 0; index < 100; index++) {
+            channel.feed(InMemoryDiscordIPCChannel.frame(1, RESPONSE), 7);
+        }
+
+        assertEquals(100, readAll(new DiscordFrameDecoder(pool, 1024), channel).size());
+        assertEquals(1, pool.getMissCount());
+        assertEquals(99, pool.getHitCount());
+    }
+
+    @Test
+    void rejectsNonPositiveMaximum() {
+        assertThrows(IllegalArgumentException.class, () -> new DiscordFrameDecoder(new DiscordBufferPool(), 0));
+    }
+
+    private static List<String> readAll(DiscordFrameDecoder decoder, InMemoryDiscordIPCChannel channel) throws IOException {
+        channel.endOfStream();
+        List<String> payloads = new ArrayList<>();
+        while (true) {
+            DiscordResponse response;
+            try {
+                response = decoder.read(channel);
+            } catch (EOFException exception) {
+                return payloads;
+            }
+
+            assertNotNull(response, "an in-memory channel always has data until it ends");
+            payloads.add(payload(response));
+        }
+    }
+
+    private static String payload(DiscordResponse response) {
+        assertNotNull(response);
+        return new String(response.payload(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] header(int opcode, int length) {
+        return ByteBuffer.allocate(DiscordFrameDecoder.HEADER_LENGTH)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(opcode)
+                .putInt(length)
+                .array();
+    }
+
+    private static byte[] slice(byte[] bytes, int from, int to) {
+        return Arrays.copyOfRange(bytes, from, to);
+    }
+}
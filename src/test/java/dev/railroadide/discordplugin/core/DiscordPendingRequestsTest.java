@@ -0,0 +1,285 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.data.DiscordResult;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscordPendingRequestsTest {
+    private static final long TICK = 10;
+
+    private final Map<Long, Object> outcomes = new HashMap<>();
+
+    @Test
+    void expiresAtDeadlineAndNotBefore() {
+        var requests = new DiscordPendingRequests(16, 20 * TICK, TICK);
+        add(requests, 1, 0);
+
+        requests.advance(20 * TICK - 1);
+        assertFalse(this.outcomes.containsKey(1L));
+        assertEquals(1, requests.getInFlightCount());
+
+        requests.advance(20 * TICK);
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(1L));
+        assertTrue(requests.isEmpty());
+        assertEquals(0, requests.getInFlightCount());
+    }
+
+    @Test
+    void roundsTimeoutUpToWholeTicks() {
+        var requests = new DiscordPendingRequests(16, 20 * TICK + 1, TICK);
+        add(requests, 1, 0);
+
+        requests.advance(20 * TICK);
+        assertFalse(this.outcomes.containsKey(1L));
+
+        requests.advance(21 * TICK);
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(1L));
+    }
+
+    @Test
+    void expiresTimeoutsLongerThanOneWheelTurn() {
+        long timeout = 200 * TICK; // More than three turns of the 64-slot wheel
+        var requests = new DiscordPendingRequests(16, timeout, TICK);
+        add(requests, 1, 0);
+
+        for (long now = TICK; now < timeout; now += TICK) {
+            requests.advance(now);
+            assertFalse(this.outcomes.containsKey(1L), "expired early at " + now);
+        }
+
+        requests.advance(timeout);
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(1L));
+    }
+
+    @Test
+    void expiresEverythingDueAfterALongPause() {
+        var requests = new DiscordPendingRequests(16, 5 * TICK, TICK);
+        add(requests, 1, 0);
+        requests.advance(2 * TICK);
+        add(requests, 2, 2 * TICK);
+        add(requests, 3, 2 * TICK);
+
+        requests.advance(1000 * TICK);
+
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(1L));
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(2L));
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(3L));
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    void expiresRequestsAddedAtDifferentTicksInOrder() {
+        var requests = new DiscordPendingRequests(16, 5 * TICK, TICK);
+        add(requests, 1, 0);
+        requests.advance(TICK);
+        add(requests, 2, TICK);
+
+        requests.advance(5 * TICK);
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(1L));
+        assertFalse(this.outcomes.containsKey(2L));
+
+        requests.advance(6 * TICK);
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(2L));
+    }
+
+    @Test
+    void restartsTheWheelAfterBeingIdle() {
+        var requests = new DiscordPendingRequests(16, 5 * TICK, TICK);
+        add(requests, 1, 0);
+        requests.advance(5 * TICK);
+        assertTrue(requests.isEmpty());
+
+        // Nothing advances the wheel while it is empty
+        long start = 1_000_000;
+        add(requests, 2, start);
+
+        requests.advance(start + 5 * TICK - 1);
+        assertFalse(this.outcomes.containsKey(2L));
+        assertEquals(1, requests.nanosUntilNextTick(start + 5 * TICK - 1));
+
+        requests.advance(start + 5 * TICK);
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(2L));
+    }
+
+    @Test
+    void completedRequestsNeverExpire() {
+        var requests = new DiscordPendingRequests(16, 5 * TICK, TICK);
+        add(requests, 1, 0);
+        add(requests, 2, 0);
+        var response = new DiscordCommand();
+
+        assertTrue(requests.complete(1, response));
+        requests.advance(5 * TICK);
+
+        assertSame(response, this.outcomes.get(1L));
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(2L));
+        assertFalse(requests.complete(1, response));
+        assertFalse(requests.complete(2, response));
+    }
+
+    @Test
+    void failsEverythingAndAcceptsNewRequestsAfterwards() {
+        var requests = new DiscordPendingRequests(16, 5 * TICK, TICK);
+        add(requests, 1, 0);
+        add(requests, 2, 0);
+
+        requests.failAll(DiscordResult.DISCONNECTED);
+        assertEquals(DiscordResult.DISCONNECTED, this.outcomes.get(1L));
+        assertEquals(DiscordResult.DISCONNECTED, this.outcomes.get(2L));
+        assertTrue(requests.isEmpty());
+
+        add(requests, 3, 100 * TICK);
+        requests.advance(105 * TICK);
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(3L));
+    }
+
+    @Test
+    void rejectsRequestsBeyondCapacity() {
+        var requests = new DiscordPendingRequests(2, 5 * TICK, TICK);
+
+        assertTrue(add(requests, 1, 0));
+        assertTrue(add(requests, 2, 0));
+        assertFalse(add(requests, 3, 0));
+        assertEquals(2, requests.getInFlightCount());
+
+        requests.complete(1, new DiscordCommand());
+        assertTrue(add(requests, 3, 0));
+    }
+
+    @Test
+    void letsFailureCallbacksSendNewRequests() {
+        var requests = new DiscordPendingRequests(16, 5 * TICK, TICK);
+        requests.add(1, response -> {
+        }, result -> add(requests, 2, 5 * TICK), 0);
+
+        requests.advance(5 * TICK);
+        assertEquals(1, requests.getInFlightCount());
+
+        requests.advance(10 * TICK);
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(2L));
+    }
+
+    @Test
+    void findsEveryEntryOfAProbeChainAfterRemovingFromTheMiddle() {
+        // Capacity 4 gives a table of 8 slots, so these nonces all start probing at slot 1
+        var requests = new DiscordPendingRequests(4, 5 * TICK, TICK);
+        add(requests, 1, 0);
+        add(requests, 9, 0);
+        add(requests, 17, 0);
+
+        assertTrue(requests.complete(9, new DiscordCommand()));
+        assertTrue(requests.complete(17, new DiscordCommand()));
+        assertTrue(requests.complete(1, new DiscordCommand()));
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    void findsEveryEntryOfAProbeChainAfterRemovingItsHead() {
+        var requests = new DiscordPendingRequests(4, 5 * TICK, TICK);
+        add(requests, 1, 0);
+        add(requests, 9, 0);
+        add(requests, 2, 0);
+        add(requests, 17, 0);
+
+        assertTrue(requests.complete(1, new DiscordCommand()));
+        assertFalse(requests.complete(1, new DiscordCommand()));
+        assertTrue(requests.complete(2, new DiscordCommand()));
+        assertTrue(requests.complete(17, new DiscordCommand()));
+        assertTrue(requests.complete(9, new DiscordCommand()));
+    }
+
+    @Test
+    void findsEveryEntryOfAProbeChainThatWrapsAround() {
+        // Slot 7 is the last one, so the chain continues at slots 0 and 1, where nonce 8 also starts
+        var requests = new DiscordPendingRequests(4, 5 * TICK, TICK);
+        add(requests, 7, 0);
+        add(requests, 15, 0);
+        add(requests, 23, 0);
+        add(requests, 8, 0);
+
+        assertTrue(requests.complete(7, new DiscordCommand()));
+        assertTrue(requests.complete(8, new DiscordCommand()));
+        assertTrue(requests.complete(23, new DiscordCommand()));
+        assertTrue(requests.complete(15, new DiscordCommand()));
+    }
+
+    @Test
+    void expiresEntriesMovedByBackwardShift() {
+        var requests = new DiscordPendingRequests(4, 5 * TICK, TICK);
+        add(requests, 1, 0);
+        add(requests, 9, 0);
+        add(requests, 17, 0);
+        requests.complete(1, new DiscordCommand());
+
+        requests.advance(5 * TICK);
+
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(9L));
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(17L));
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    void matchesAMapUnderRandomCollidingOperations() {
+        var random = new Random(12345);
+        var requests = new DiscordPendingRequests(8, Long.MAX_VALUE / 2, TICK);
+        Map<Long, Boolean> expected = new HashMap<>();
+
+        for (int step = 0; step < 100_000; step++) {
+            // Multiples of the 16-slot table size apart, so almost every operation probes
+            long nonce = 1 + random.nextInt(4) + 16L * random.nextInt(6);
+            if (random.nextBoolean()) {
+                boolean added = requests.add(nonce, response -> {
+                }, result -> {
+                }, 0);
+                assertEquals(expected.size() < 8, added, "adding " + nonce);
+                if (added) {
+                    expected.put(nonce, true);
+                }
+            } else {
+                assertEquals(expected.remove(nonce) != null, requests.complete(nonce, new DiscordCommand()), "completing " + nonce);
+            }
+
+            assertEquals(expected.size(), requests.getInFlightCount());
+        }
+    }
+
+    @Test
+    void replacesARequestAddedTwiceWithTheSameNonce() {
+        var requests = new DiscordPendingRequests(4, 5 * TICK, TICK);
+        List<Object> first = new ArrayList<>();
+        requests.add(1, first::add, first::add, 0);
+        add(requests, 1, 0);
+
+        assertEquals(1, requests.getInFlightCount());
+        requests.advance(5 * TICK);
+        assertTrue(first.isEmpty());
+        assertEquals(DiscordResult.TIMED_OUT, this.outcomes.get(1L));
+    }
+
+    @Test
+    void ignoresNoncesThatWereNeverIssued() {
+        var requests = new DiscordPendingRequests(4, 5 * TICK, TICK);
+        add(requests, 1, 0);
+
+        assertFalse(requests.complete(DiscordCommand.NO_NONCE, new DiscordCommand()));
+        assertFalse(requests.complete(DiscordCommand.FOREIGN_NONCE, new DiscordCommand()));
+        assertFalse(requests.complete(9, new DiscordCommand()));
+        assertEquals(1, requests.getInFlightCount());
+    }
+
+    private boolean add(DiscordPendingRequests requests, long nonce, long now) {
+        return requests.add(nonce, response -> record(nonce, response), result -> record(nonce, result), now);
+    }
+
+    private void record(long nonce, Object outcome) {
+        assertNull(this.outcomes.put(nonce, outcome), "request " + nonce + " completed twice");
+    }
+}
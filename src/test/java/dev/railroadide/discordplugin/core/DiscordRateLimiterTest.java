@@ -0,0 +1,79 @@
+package dev.railroadide.discordplugin.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscordRateLimiterTest {
+    private static final long TOKEN = Duration.ofSeconds(4).toNanos();
+
+    private final DiscordRateLimiter limiter = new DiscordRateLimiter(5, Duration.ofSeconds(20), 0);
+
+    @Test
+    void allowsABurstOfCapacityThenDefers() {
+        for (int index = 0; index < 5; index++) {
+            assertTrue(this.limiter.tryAcquire(0), "update " + index);
+        }
+
+        assertFalse(this.limiter.tryAcquire(0));
+        assertEquals(0, this.limiter.getAvailableTokens());
+        assertEquals(1, this.limiter.getDeferredCount());
+    }
+
+    @Test
+    void refillsOneTokenPerPeriodOverCapacity() {
+        drain();
+
+        assertFalse(this.limiter.tryAcquire(TOKEN - 1));
+        assertTrue(this.limiter.tryAcquire(TOKEN));
+        assertFalse(this.limiter.tryAcquire(TOKEN));
+
+        assertTrue(this.limiter.tryAcquire(3 * TOKEN));
+        assertTrue(this.limiter.tryAcquire(3 * TOKEN));
+        assertFalse(this.limiter.tryAcquire(3 * TOKEN));
+    }
+
+    @Test
+    void keepsPartialRefillProgress() {
+        drain();
+
+        // Half a token has accrued, which is kept for the next refill
+        assertFalse(this.limiter.tryAcquire(TOKEN / 2));
+        assertEquals(TOKEN / 2, this.limiter.nanosUntilAvailable(TOKEN / 2));
+        assertTrue(this.limiter.tryAcquire(TOKEN));
+    }
+
+    @Test
+    void neverRefillsBeyondCapacity() {
+        drain();
+
+        assertTrue(this.limiter.tryAcquire(1000 * TOKEN));
+        assertEquals(4, this.limiter.getAvailableTokens());
+    }
+
+    @Test
+    void reportsTheWaitForTheNextToken() {
+        assertEquals(0, this.limiter.nanosUntilAvailable(0));
+
+        drain();
+        assertEquals(TOKEN, this.limiter.nanosUntilAvailable(0));
+        assertEquals(1, this.limiter.nanosUntilAvailable(TOKEN - 1));
+        assertEquals(0, this.limiter.nanosUntilAvailable(TOKEN));
+    }
+
+    @Test
+    void rejectsNonPositiveLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new DiscordRateLimiter(0, Duration.ofSeconds(20)));
+        assertThrows(IllegalArgumentException.class, () -> new DiscordRateLimiter(5, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new DiscordRateLimiter(5, Duration.ofSeconds(-1)));
+        assertThrows(IllegalArgumentException.class, () -> new DiscordRateLimiter(5, null));
+    }
+
+    private void drain() {
+        for (int index = 0; index < this.limiter.getCapacity(); index++) {
+            assertTrue(this.limiter.tryAcquire(0));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package dev.railroadide.discordplugin.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockDiscordLogger.class)
+class DiscordStatePublisherTest {
+    private final DiscordCallbackExecutor executor = new DiscordCallbackExecutor(Executors.newCachedThreadPool());
+
+    @AfterEach
+    void closeExecutor() {
+        this.executor.close();
+    }
+
+    @Test
+    void replaysOnlyTheLatestValueToNewSubscribers() throws Exception {
+        var publisher = new DiscordStatePublisher<String>(this.executor, 4);
+        publisher.submit("first");
+        publisher.submit("second");
+
+        var subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        assertEquals("second", subscriber.next());
+
+        publisher.submit("third");
+        assertEquals("third", subscriber.next());
+        assertNull(subscriber.values.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals("third", publisher.getLatest());
+    }
+
+    @Test
+    void dropsTheOldestValuesOfASubscriberThatFallsBehind() throws Exception {
+        var publisher = new DiscordStatePublisher<String>(this.executor, 2);
+        var subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+        Flow.Subscription subscription = subscriber.subscription.get(5, TimeUnit.SECONDS);
+
+        for (String value : List.of("1", "2", "3", "4", "5")) {
+            publisher.submit(value);
+        }
+
+        subscription.request(Long.MAX_VALUE);
+        assertEquals("4", subscriber.next());
+        assertEquals("5", subscriber.next());
+        assertNull(subscriber.values.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void completesSubscribersOnClose() throws Exception {
+        var publisher = new DiscordStatePublisher<String>(this.executor, 1);
+        var subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        publisher.submit("last");
+        publisher.close();
+
+        // Values buffered before the close are still delivered
+        assertEquals("last", subscriber.next());
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+
+        publisher.submit("ignored");
+        assertEquals("last", publisher.getLatest());
+
+        var late = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(late);
+        assertTrue(late.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(late.values.isEmpty());
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<String> {
+        private final long initialDemand;
+        private final CompletableFuture<Flow.Subscription> subscription = new CompletableFuture<>();
+        private final BlockingQueue<String> values = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        private String next() throws InterruptedException {
+            return this.values.poll(5, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (this.initialDemand > 0) {
+                subscription.request(this.initialDemand);
+            }
+
+            this.subscription.complete(subscription);
+        }
+
+        @Override
+        public void onNext(String item) {
+            this.values.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed.countDown();
+        }
+    }
+}
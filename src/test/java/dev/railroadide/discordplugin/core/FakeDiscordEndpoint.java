@@ -0,0 +1,181 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.data.DiscordConnectionState;
+import dev.railroadide.discordplugin.data.DiscordResponse;
+import dev.railroadide.discordplugin.event.DiscordCommand;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A Discord client stand-in listening on a Unix domain socket, for tests that run a real {@link DiscordCore}.
+ * <p>
+ * The endpoint does nothing on its own: tests accept the connection, read frames and write responses
+ * themselves, so they decide exactly when Discord answers.
+ */
+final class FakeDiscordEndpoint implements AutoCloseable {
+    private static final String READY = "{\"cmd\":\"DISPATCH\",\"evt\":\"READY\",\"data\":{\"v\":1}}";
+
+    private final Path path;
+    private final ServerSocketChannel server;
+    private SocketChannel client;
+
+    FakeDiscordEndpoint(Path path) throws IOException {
+        this.path = path;
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        this.server.bind(UnixDomainSocketAddress.of(path));
+    }
+
+    Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Accepts the core's connection and answers its handshake with READY.
+     */
+    void acceptAndHandshake() throws IOException {
+        acceptAndHandshake(READY);
+    }
+
+    /**
+     * Accepts the core's connection and answers its handshake with the given READY payload.
+     */
+    void acceptAndHandshake(String ready) throws IOException {
+        this.client = this.server.accept();
+        DiscordResponse handshake = readFrame();
+        if (handshake.connectionState() != DiscordConnectionState.HANDSHAKE)
+            throw new IOException("Expected a handshake, got " + handshake.connectionState());
+
+        writeFrame(DiscordConnectionState.CONNECTED, ready);
+    }
+
+    /**
+     * @return A core for this endpoint that does not reconnect on its own.
+     */
+    DiscordCore newCore() {
+        return new DiscordCore("0", () -> false, this.path.toString());
+    }
+
+    /**
+     * Connects a core to this endpoint and waits until the core is READY.
+     *
+     * @return The core.
+     */
+    DiscordCore connectReady(DiscordCore core) throws IOException, ExecutionException, InterruptedException, TimeoutException {
+        return connectReady(core, READY);
+    }
+
+    /**
+     * Connects a core to this endpoint, answers its handshake with the given READY payload and waits until the
+     * core is READY.
+     *
+     * @return The core.
+     */
+    DiscordCore connectReady(DiscordCore core, String ready) throws IOException, ExecutionException, InterruptedException, TimeoutException {
+        var state = new CompletableFuture<Void>();
+        core.getConnectionStatePublisher().subscribe(DiscordStatePublisher.subscriber(value -> {
+            if (value == DiscordConnectionSupervisor.State.READY) {
+                state.complete(null);
+            }
+        }));
+
+        core.connect();
+        acceptAndHandshake(ready);
+        state.get(10, TimeUnit.SECONDS);
+        return core;
+    }
+
+    /**
+     * Reads commands until one of the given type arrives, answering every other command along the way, such as
+     * the event subscriptions the core sends on READY.
+     */
+    DiscordCommand nextCommand(DiscordCommand.Type type) throws IOException {
+        while (true) {
+            DiscordCommand command = readCommand();
+            if (command.getCmd() == type)
+                return command;
+
+            answer(command);
+        }
+    }
+
+    /**
+     * Reads and decodes the next command sent by the core.
+     */
+    DiscordCommand readCommand() throws IOException {
+        return DiscordCommandDecoder.decode(readFrame().payload());
+    }
+
+    /**
+     * Answers a command with a successful response carrying empty data.
+     */
+    void answer(DiscordCommand command) throws IOException {
+        answer(command, "{}");
+    }
+
+    /**
+     * Answers a command with a successful response carrying the given data.
+     */
+    void answer(DiscordCommand command, String data) throws IOException {
+        writeFrame(DiscordConnectionState.CONNECTED, "{\"cmd\":\"" + command.getCmd() + "\",\"data\":" + data +
+                ",\"nonce\":\"" + command.getNonce() + "\"}");
+    }
+
+    /**
+     * Reads the next frame sent by the core, blocking until it is complete.
+     */
+    DiscordResponse readFrame() throws IOException {
+        ByteBuffer header = readFully(DiscordFrameDecoder.HEADER_LENGTH);
+        int opcode = header.getInt();
+        int length = header.getInt();
+        byte[] payload = new byte[length];
+        readFully(length).get(payload);
+        return new DiscordResponse(DiscordConnectionState.VALUES[opcode], payload);
+    }
+
+    void writeFrame(DiscordConnectionState state, String payload) throws IOException {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(DiscordFrameDecoder.HEADER_LENGTH + bytes.length)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(state.ordinal())
+                .putInt(bytes.length)
+                .put(bytes)
+                .flip();
+        while (frame.hasRemaining()) {
+            this.client.write(frame);
+        }
+    }
+
+    private ByteBuffer readFully(int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (this.client.read(buffer) < 0)
+                throw new EOFException("The core closed the connection");
+        }
+
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.client != null) {
+            this.client.close();
+        }
+
+        this.server.close();
+        Files.deleteIfExists(this.path);
+    }
+}
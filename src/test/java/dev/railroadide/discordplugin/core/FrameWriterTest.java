@@ -0,0 +1,43 @@
+package dev.railroadide.discordplugin.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameWriterTest {
+    private final DiscordBufferPool pool = new DiscordBufferPool();
+
+    @Test
+    void encodesCharArraySlicesAsUtf8() {
+        String text = "Zoë 🚂 ".repeat(64);
+        char[] chars = ("[" + text + "]").toCharArray();
+
+        // Starts small, so the writer has to grow while encoding
+        var writer = new FrameWriter(this.pool, 16);
+        writer.write(chars, 1, text.length());
+
+        assertEquals(text, payload(writer.finish(1)));
+    }
+
+    @Test
+    void replacesUnpairedSurrogatesInCharArrays() {
+        char[] chars = "a🚂b\uDC00c".toCharArray();
+
+        var writer = new FrameWriter(this.pool, 16);
+        // Ends between the two halves of the emoji
+        writer.write(chars, 0, 2);
+        writer.write(chars, 3, chars.length - 3);
+
+        assertEquals("a?b?c", payload(writer.finish(1)));
+    }
+
+    private String payload(ByteBuffer frame) {
+        var bytes = new byte[frame.remaining() - DiscordFrameDecoder.HEADER_LENGTH];
+        frame.position(DiscordFrameDecoder.HEADER_LENGTH).get(bytes);
+        this.pool.release(frame);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
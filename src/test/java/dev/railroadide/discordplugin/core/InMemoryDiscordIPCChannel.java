@@ -0,0 +1,142 @@
+package dev.railroadide.discordplugin.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+
+/**
+ * A {@link DiscordIPCChannel} backed by memory, for tests.
+ * <p>
+ * Inbound data is queued as chunks. A read copies from the current chunk only, so every chunk boundary is a
+ * point where the decoder sees a partial header or payload. Once the queued chunks are used up a read returns
+ * {@code 0}, or {@code -1} after {@link #endOfStream()}. Everything written is kept for inspection.
+ */
+final class InMemoryDiscordIPCChannel implements DiscordIPCChannel {
+    private final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private boolean endOfStream;
+    private boolean open = true;
+
+    /**
+     * Encodes a frame the way Discord sends it.
+     */
+    static byte[] frame(int opcode, String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(DiscordFrameDecoder.HEADER_LENGTH + bytes.length)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(opcode)
+                .putInt(bytes.length)
+                .put(bytes)
+                .array();
+    }
+
+    /**
+     * Queues data to be read as a single chunk.
+     */
+    synchronized InMemoryDiscordIPCChannel feed(byte[] data) {
+        this.chunks.add(ByteBuffer.wrap(data));
+        return this;
+    }
+
+    /**
+     * Queues data split into chunks of at most the given size.
+     */
+    synchronized InMemoryDiscordIPCChannel feed(byte[] data, int chunkSize) {
+        for (int offset = 0; offset < data.length; offset += chunkSize) {
+            this.chunks.add(ByteBuffer.wrap(data, offset, Math.min(chunkSize, data.length - offset)).slice());
+        }
+
+        return this;
+    }
+
+    /**
+     * Makes reads return {@code -1} once the queued chunks are used up.
+     */
+    synchronized InMemoryDiscordIPCChannel endOfStream() {
+        this.endOfStream = true;
+        return this;
+    }
+
+    /**
+     * @return Everything written to the channel so far.
+     */
+    synchronized byte[] written() {
+        return this.written.toByteArray();
+    }
+
+    @Override
+    public synchronized void close() {
+        this.open = false;
+    }
+
+    @Override
+    public void configureBlocking(boolean block) {
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        if (!this.open)
+            throw new ClosedChannelException();
+
+        ByteBuffer chunk = this.chunks.peek();
+        if (chunk == null)
+            return this.endOfStream ? -1 : 0;
+
+        int count = Math.min(chunk.remaining(), dst.remaining());
+        ByteBuffer part = chunk.slice().limit(count);
+        dst.put(part);
+        chunk.position(chunk.position() + count);
+        if (!chunk.hasRemaining()) {
+            this.chunks.poll();
+        }
+
+        return count;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        long total = 0;
+        for (int index = offset; index < offset + length; index++) {
+            int read = read(dsts[index]);
+            if (read < 0)
+                return total == 0 ? -1 : total;
+
+            total += read;
+            if (dsts[index].hasRemaining())
+                break;
+        }
+
+        return total;
+    }
+
+    @Override
+    public synchronized int write(ByteBuffer src) throws IOException {
+        if (!this.open)
+            throw new ClosedChannelException();
+
+        int count = src.remaining();
+        byte[] bytes = new byte[count];
+        src.get(bytes);
+        this.written.write(bytes, 0, count);
+        return count;
+    }
+
+    @Override
+    public synchronized long write(ByteBuffer[] srcs) throws IOException {
+        long total = 0;
+        for (ByteBuffer src : srcs) {
+            total += write(src);
+        }
+
+        return total;
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return this.open;
+    }
+}
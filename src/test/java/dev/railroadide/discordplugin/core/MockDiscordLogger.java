@@ -0,0 +1,26 @@
+package dev.railroadide.discordplugin.core;
+
+import dev.railroadide.discordplugin.DiscordPlugin;
+import dev.railroadide.logger.Logger;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Replaces the plugin logger with a mock before a test class runs, since tests run without the Railroad host that
+ * normally provides it.
+ */
+final class MockDiscordLogger implements BeforeAllCallback {
+    /**
+     * Installs a mock logger. Also used by benchmarks, which cannot use JUnit extensions.
+     */
+    static void install() {
+        DiscordPlugin.logger = mock(Logger.class);
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        install();
+    }
+}